@@ -0,0 +1,281 @@
+package analysis;
+
+import bot.AnalysisCache;
+import bot.CachedEvaluator;
+import bot.ChessDelegate;
+import bot.MinimaxTreeExplorer;
+import bot.NaiveUtilityEvaluator;
+import bot.Scores;
+import functionality.ChessGame;
+import functionality.Move;
+import functionality.TeamColor;
+import pgn.San;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming analyzer of files of positions, one FEN or EPD position per line, that writes the
+ * best move, score, depth, node count and principal variation of each position as an EPD line
+ * with the standard opcodes bm, ce (or dm for a forced mate), acd, acn and pv.
+ *
+ * Positions are read one at a time and analyzed on a fixed pool of worker threads, each with its
+ * own explorer. At most a fixed number of positions are read ahead of the last result written, so
+ * reading waits for the workers when they fall behind and memory use does not grow with the size
+ * of the input. Results are written in the order of the input as soon as they are available.
+ *
+ * With an analysis cache, positions already analysed to the depth asked for are answered from the
+ * cache, and the results of new ones are added to it.
+ *
+ * Usage: BatchAnalyzer [-in file] [-out file] [-depth n] [-nodes n] [-threads n] [-cache dir]
+ *
+ * Input is read from standard input and output written to standard output unless files are given.
+ */
+public class BatchAnalyzer {
+    private static final int DEFAULT_DEPTH = 5;
+    // Positions read ahead of the last result written, per worker.
+    private static final int PENDING_PER_THREAD = 4;
+
+    private final int threads;
+    private final long nodeLimit;
+    private final ThreadLocal<MinimaxTreeExplorer<ChessGame>> explorers;
+    private volatile AnalysisCache analysisCache;
+
+    // Results waiting for those of earlier positions to be written, by position number, and the
+    // number of the next position to write. Guarded by this object's lock.
+    private final Map<Long, String> completed = new HashMap<>();
+    private long nextToWrite;
+    private Writer out;
+    private IOException writeError;
+    // First error thrown by a worker, such as running out of memory, which ends the analysis.
+    private Error workerError;
+
+    /**
+     * Create an analyzer that searches each position to the given depth.
+     * @param threads number of worker threads
+     * @param depth depth each position is searched to
+     * @param nodeLimit number of nodes after which the search of a position stops, or 0 for no limit
+     */
+    public BatchAnalyzer(int threads, int depth, long nodeLimit) {
+        this.threads = threads;
+        this.nodeLimit = nodeLimit;
+        this.explorers = ThreadLocal.withInitial(() -> {
+            MinimaxTreeExplorer<ChessGame> explorer = new MinimaxTreeExplorer<>(
+                    new CachedEvaluator(new NaiveUtilityEvaluator()), new ChessDelegate(), TeamColor.WHITE, null,
+                    depth);
+            explorer.setFutilityPruning(true);
+            explorer.setReverseFutilityPruning(true);
+            explorer.setIterativeDeepening(true);
+            return explorer;
+        });
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i], args[i + 1]);
+        }
+        int threads = Integer.parseInt(options.getOrDefault("-threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        BatchAnalyzer analyzer = new BatchAnalyzer(threads,
+                Integer.parseInt(options.getOrDefault("-depth", String.valueOf(DEFAULT_DEPTH))),
+                Long.parseLong(options.getOrDefault("-nodes", "0")));
+        AnalysisCache cache = options.containsKey("-cache") ? AnalysisCache.open(Paths.get(options.get("-cache")))
+                : null;
+        analyzer.setAnalysisCache(cache);
+
+        try (BufferedReader in = options.containsKey("-in")
+                ? Files.newBufferedReader(Paths.get(options.get("-in")), StandardCharsets.UTF_8)
+                : new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+             Writer out = options.containsKey("-out")
+                ? Files.newBufferedWriter(Paths.get(options.get("-out")), StandardCharsets.UTF_8)
+                : new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))) {
+            long start = System.nanoTime();
+            long positions = analyzer.analyze(in, out);
+            long millis = (System.nanoTime() - start) / 1000000;
+            System.err.printf("%d positions in %d ms%n", positions, millis);
+        } finally {
+            if (cache != null) {
+                System.err.printf("%d cache hits, %d misses%n", cache.getHits(), cache.getMisses());
+                cache.close();
+            }
+        }
+    }
+
+    /**
+     * Set the cache of analysed positions looked up before searching a position and updated with
+     * the results, or null for none.
+     * @param analysisCache analysis cache
+     */
+    public void setAnalysisCache(AnalysisCache analysisCache) {
+        this.analysisCache = analysisCache;
+    }
+
+    /**
+     * Analyze every position read from the input, writing a result line for each of them in the
+     * same order. Lines that are empty or start with '#' are skipped, and lines that are not
+     * valid positions are written back as comments. An error thrown by a worker, such as running
+     * out of memory, ends the analysis once the positions under way are done, and is rethrown.
+     * @param in source of positions
+     * @param out destination of results, which is not closed
+     * @throws IOException if the positions cannot be read or the results cannot be written
+     * @throws InterruptedException if interrupted while waiting for the workers
+     * @return number of lines analyzed, including those that are not valid positions
+     */
+    public long analyze(BufferedReader in, Writer out) throws IOException, InterruptedException {
+        synchronized (this) {
+            this.out = out;
+            completed.clear();
+            nextToWrite = 0;
+            writeError = null;
+            workerError = null;
+        }
+        int maxPending = threads * PENDING_PER_THREAD;
+        Semaphore pending = new Semaphore(maxPending);
+        ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-analyzer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long count = 0;
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String position = line.trim();
+                if (position.isEmpty() || position.startsWith("#")) {
+                    continue;
+                }
+                // Wait for a result to be written before reading further ahead.
+                pending.acquire();
+                long number = count++;
+                workers.execute(() -> {
+                    String result = null;
+                    try {
+                        result = analyzePosition(position);
+                    } catch (RuntimeException e) {
+                        result = "# " + e.getMessage() + ": " + position;
+                    } catch (Error e) {
+                        fail(e);
+                    } finally {
+                        // Every position must complete, or waiting for the results would never end.
+                        pending.release(complete(number, result != null ? result : "# failed: " + position));
+                    }
+                });
+                synchronized (this) {
+                    if (writeError != null || workerError != null) {
+                        break;
+                    }
+                }
+            }
+            pending.acquire(maxPending);
+        } finally {
+            workers.shutdownNow();
+            workers.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        synchronized (this) {
+            if (workerError != null) {
+                throw workerError;
+            }
+            if (writeError != null) {
+                throw writeError;
+            }
+            out.flush();
+        }
+        return count;
+    }
+
+    /**
+     * Analyze one position with the explorer of the current thread.
+     * @param line FEN or EPD position, whose EPD operations are kept
+     * @throws IllegalArgumentException if the line is not a valid position
+     * @return result line in EPD
+     */
+    public String analyzePosition(String line) {
+        String[] fields = line.split("\\s+", 5);
+        if (fields.length < 4) {
+            throw new IllegalArgumentException("Invalid FEN");
+        }
+        // EPD operations follow the first four fields of FEN, where FEN has its move counters.
+        boolean epd = fields.length == 5 && !Character.isDigit(fields[4].charAt(0));
+        ChessGame game = ChessGame.fromFen(epd ? String.join(" ", fields[0], fields[1], fields[2], fields[3])
+                : line);
+
+        StringBuilder result = new StringBuilder(line.length() + 100);
+        result.append(fields[0]).append(' ').append(fields[1]).append(' ').append(fields[2]).append(' ')
+                .append(fields[3]);
+        MinimaxTreeExplorer<ChessGame> explorer = explorers.get();
+        explorer.setTeam(game.currentTurn());
+        explorer.setRoot(game);
+        explorer.setNodeLimit(nodeLimit);
+        explorer.setAnalysisCache(analysisCache);
+        List<MinimaxTreeExplorer<ChessGame>.NodeValue> best = explorer.getNextBestNodes(1);
+        if (best.isEmpty()) {
+            result.append(" c0 \"no legal moves\";");
+        } else {
+            MinimaxTreeExplorer<ChessGame>.NodeValue node = best.get(0);
+            result.append(" bm ").append(San.toSan(game, node.node.getLastMove())).append(';');
+            if (Scores.isMate(node.value)) {
+                int plies = Scores.MATE - Math.abs(node.value);
+                result.append(" dm ").append(node.value > 0 ? (plies + 1) / 2 : -(plies / 2)).append(';');
+            } else {
+                result.append(" ce ").append(node.value).append(';');
+            }
+            result.append(" acd ").append(explorer.getDepthReached()).append(';')
+                    .append(" acn ").append(explorer.getNodeCount()).append(';')
+                    .append(" pv");
+            ChessGame position = game.copy();
+            for (int code : node.pv) {
+                Move move = Move.fromCode(code);
+                result.append(' ').append(San.toSan(position, move));
+                position.attemptMove(move);
+            }
+            result.append(';');
+        }
+        if (epd) {
+            result.append(' ').append(fields[4]);
+        }
+        return result.toString();
+    }
+
+    // Record the first error thrown by a worker, which 'analyze' rethrows.
+    private synchronized void fail(Error e) {
+        if (workerError == null) {
+            workerError = e;
+        }
+    }
+
+    // Record the result of the position with the given number and write every result that no
+    // longer waits for an earlier one. Returns the number of results written.
+    private synchronized int complete(long number, String result) {
+        completed.put(number, result);
+        int written = 0;
+        String next;
+        while ((next = completed.remove(nextToWrite)) != null) {
+            nextToWrite++;
+            written++;
+            if (writeError == null) {
+                try {
+                    out.write(next);
+                    out.write('\n');
+                } catch (IOException e) {
+                    writeError = e;
+                }
+            }
+        }
+        return written;
+    }
+}
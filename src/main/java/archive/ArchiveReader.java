@@ -0,0 +1,229 @@
+package archive;
+
+import functionality.ChessGame;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reader of a binary game archive, written by an ArchiveWriter, with random access to its games.
+ *
+ * The file holds a header, then the games in blocks of GAMES_PER_BLOCK compressed with Deflate,
+ * then an index of the position and lengths of each block. A game's record holds its tags, its
+ * result, its starting position if not the standard one and its moves, one byte per move (see
+ * MoveCodec). Reading a game reads and decompresses only its block, and the block read last is
+ * kept, so that reading the games in order decompresses each block once.
+ *
+ * Usage: ArchiveReader file [threads] replays every game of an archive and reports the time taken.
+ */
+public class ArchiveReader implements Closeable {
+    static final int MAGIC = 0x43474152;
+    static final int VERSION = 1;
+    // Magic number, version, game count, block count and index position.
+    static final int HEADER_SIZE = 32;
+    // Bytes of a block's index entry: its position, compressed length and uncompressed length.
+    static final int INDEX_ENTRY_SIZE = 16;
+    static final int GAMES_PER_BLOCK = 256;
+    // Results of games, numbered by their position.
+    private static final String[] RESULTS = {"*", "1-0", "0-1", "1/2-1/2"};
+
+    private final FileChannel channel;
+    private final long gameCount;
+    private final long[] blockPositions;
+    private final int[] compressedLengths;
+    private final int[] uncompressedLengths;
+    private int cachedBlock = -1;
+    private List<ArchivedGame> cachedGames;
+
+    private ArchiveReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = read(0, HEADER_SIZE);
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a game archive.");
+        }
+        this.gameCount = header.getLong();
+        int blockCount = (int) header.getLong();
+        ByteBuffer index = read(header.getLong(), blockCount * INDEX_ENTRY_SIZE);
+        this.blockPositions = new long[blockCount];
+        this.compressedLengths = new int[blockCount];
+        this.uncompressedLengths = new int[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            blockPositions[i] = index.getLong();
+            compressedLengths[i] = index.getInt();
+            uncompressedLengths[i] = index.getInt();
+        }
+    }
+
+    /**
+     * Open an archive file.
+     * @param file archive file
+     * @throws IOException if the file cannot be read or is not a game archive
+     * @return reader of the archive
+     */
+    public static ArchiveReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new ArchiveReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try (ArchiveReader reader = open(Paths.get(args[0]))) {
+            long start = System.nanoTime();
+            List<Future<Long>> plies = new ArrayList<>();
+            for (int block = 0; block < reader.getBlockCount(); block++) {
+                int b = block;
+                plies.add(workers.submit(() -> {
+                    long count = 0;
+                    for (ArchivedGame game : reader.readBlock(b)) {
+                        game.replay(null);
+                        count += game.getPlyCount();
+                    }
+                    return count;
+                }));
+            }
+            long total = 0;
+            for (Future<Long> count : plies) {
+                total += count.get();
+            }
+            long millis = Math.max(1, (System.nanoTime() - start) / 1000000);
+            System.out.printf("%d games, %d plies in %d ms (%d games/s)%n", reader.getGameCount(), total, millis,
+                    reader.getGameCount() * 1000 / millis);
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    public int getBlockCount() {
+        return blockPositions.length;
+    }
+
+    /**
+     * Returns a game of the archive.
+     * @param number number of the game, counting from 0 in the order the games were added
+     * @throws IOException if the archive cannot be read
+     * @return the game
+     */
+    public synchronized ArchivedGame getGame(long number) throws IOException {
+        if (number < 0 || number >= gameCount) {
+            throw new IndexOutOfBoundsException("No game " + number);
+        }
+        int block = (int) (number / GAMES_PER_BLOCK);
+        if (block != cachedBlock) {
+            cachedGames = readBlock(block);
+            cachedBlock = block;
+        }
+        return cachedGames.get((int) (number % GAMES_PER_BLOCK));
+    }
+
+    /**
+     * Returns the games of a block. Blocks can be read from several threads at once.
+     * @param block number of the block, the games of block b being those numbered from
+     *              b * GAMES_PER_BLOCK
+     * @throws IOException if the archive cannot be read
+     * @return games of the block in order
+     */
+    public List<ArchivedGame> readBlock(int block) throws IOException {
+        ByteBuffer compressed = read(blockPositions[block], compressedLengths[block]);
+        byte[] records = new byte[uncompressedLengths[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed.array(), 0, compressedLengths[block]);
+            int length = 0;
+            while (length < records.length && !inflater.finished()) {
+                int n = inflater.inflate(records, length, records.length - length);
+                if (n == 0 && inflater.needsInput()) {
+                    throw new IOException("Truncated block " + block);
+                }
+                length += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt block " + block, e);
+        } finally {
+            inflater.end();
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(records));
+        List<ArchivedGame> games = new ArrayList<>(GAMES_PER_BLOCK);
+        while (in.available() > 0) {
+            int tagCount = readVarint(in);
+            Map<String, String> tags = new LinkedHashMap<>();
+            for (int i = 0; i < tagCount; i++) {
+                tags.put(in.readUTF(), in.readUTF());
+            }
+            String result = RESULTS[in.readUnsignedByte()];
+            String startFen = in.readUTF();
+            byte[] moves = new byte[readVarint(in)];
+            in.readFully(moves);
+            games.add(new ArchivedGame(tags, startFen.isEmpty() ? ChessGame.STARTING_FEN : startFen, result, moves));
+        }
+        return games;
+    }
+
+    /**
+     * Close the archive file.
+     * @throws IOException if it cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Returns the number a result is stored as.
+    static int resultCode(String result) {
+        int code = Arrays.asList(RESULTS).indexOf(result);
+        if (code < 0) {
+            throw new IllegalArgumentException("Invalid result " + result);
+        }
+        return code;
+    }
+
+    private ByteBuffer read(long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated game archive.");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int readVarint(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,140 @@
+package archive;
+
+import functionality.ChessGame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Writer of a binary game archive. See ArchiveReader for the layout of the file.
+ */
+public class ArchiveWriter implements Closeable {
+    private final FileChannel channel;
+    private final ByteArrayOutputStream block = new ByteArrayOutputStream(1 << 16);
+    private final DataOutputStream records = new DataOutputStream(block);
+    private final Deflater deflater = new Deflater();
+    private byte[] compressed = new byte[1 << 16];
+    private int gamesInBlock;
+    private long gameCount;
+    // File position, compressed length and uncompressed length of each block written, in triples.
+    private long[] directory = new long[3 * 64];
+    private int blockCount;
+    // File position the next block is written to.
+    private long position = ArchiveReader.HEADER_SIZE;
+
+    /**
+     * Create an archive file, replacing any existing file.
+     * @param file archive file
+     * @throws IOException if the file cannot be created
+     */
+    public ArchiveWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Add a game to the end of the archive.
+     * @param game encoded game
+     * @throws IOException if the archive cannot be written
+     */
+    public void add(ArchivedGame game) throws IOException {
+        Map<String, String> tags = game.getTags();
+        writeVarint(tags.size());
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            records.writeUTF(tag.getKey());
+            records.writeUTF(tag.getValue());
+        }
+        records.writeByte(ArchiveReader.resultCode(game.getResult()));
+        records.writeUTF(game.getStartFen().equals(ChessGame.STARTING_FEN) ? "" : game.getStartFen());
+        byte[] moves = game.getEncodedMoves();
+        writeVarint(moves.length);
+        records.write(moves);
+        gameCount++;
+        if (++gamesInBlock == ArchiveReader.GAMES_PER_BLOCK) {
+            writeBlock();
+        }
+    }
+
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Write the last block, the block index and the header, and close the file.
+     * @throws IOException if the archive cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (gamesInBlock > 0) {
+                writeBlock();
+            }
+            ByteBuffer index = ByteBuffer.allocate(blockCount * ArchiveReader.INDEX_ENTRY_SIZE);
+            for (int i = 0; i < blockCount; i++) {
+                index.putLong(directory[i * 3]).putInt((int) directory[i * 3 + 1]).putInt((int) directory[i * 3 + 2]);
+            }
+            index.flip();
+            write(index, position);
+
+            ByteBuffer header = ByteBuffer.allocate(ArchiveReader.HEADER_SIZE);
+            header.putInt(ArchiveReader.MAGIC).putInt(ArchiveReader.VERSION).putLong(gameCount)
+                    .putLong(blockCount).putLong(position).flip();
+            write(header, 0);
+        } finally {
+            deflater.end();
+            channel.close();
+        }
+    }
+
+    // Compress the records of the pending games and write them as a block.
+    private void writeBlock() throws IOException {
+        byte[] uncompressed = block.toByteArray();
+        deflater.reset();
+        deflater.setInput(uncompressed);
+        deflater.finish();
+        int length = 0;
+        while (!deflater.finished()) {
+            if (length == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            length += deflater.deflate(compressed, length, compressed.length - length);
+        }
+        write(ByteBuffer.wrap(compressed, 0, length), position);
+
+        if (blockCount * 3 == directory.length) {
+            directory = Arrays.copyOf(directory, directory.length * 2);
+        }
+        directory[blockCount * 3] = position;
+        directory[blockCount * 3 + 1] = length;
+        directory[blockCount * 3 + 2] = uncompressed.length;
+        blockCount++;
+        position += length;
+        block.reset();
+        gamesInBlock = 0;
+    }
+
+    private void write(ByteBuffer buffer, long at) throws IOException {
+        while (buffer.hasRemaining()) {
+            at += channel.write(buffer, at);
+        }
+    }
+
+    // Write a value as an unsigned varint: seven bits per byte, low bits first, with the high bit
+    // set on every byte but the last.
+    private void writeVarint(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            records.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        records.writeByte(value);
+    }
+}
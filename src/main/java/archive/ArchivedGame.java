@@ -0,0 +1,159 @@
+package archive;
+
+import functionality.ChessGame;
+import functionality.Move;
+import pgn.PgnGame;
+import pgn.San;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A game of a binary archive: its tags, starting position, result and moves, each move encoded as
+ * one byte by MoveCodec. Games are encoded before they are added to an ArchiveWriter, which can be
+ * done on several threads, and their moves are only decoded when asked for.
+ */
+public class ArchivedGame {
+    private final Map<String, String> tags;
+    private final String startFen;
+    private final String result;
+    private final byte[] moves;
+
+    /**
+     * Create a game from its encoded moves.
+     * @param tags tag pairs of the game
+     * @param startFen FEN of the position the game starts from
+     * @param result result of the game: "1-0", "0-1", "1/2-1/2" or "*"
+     * @param moves moves of the game encoded by MoveCodec
+     */
+    public ArchivedGame(Map<String, String> tags, String startFen, String result, byte[] moves) {
+        this.tags = tags;
+        this.startFen = startFen;
+        this.result = result;
+        this.moves = moves;
+    }
+
+    /**
+     * Encode a game.
+     * @param tags tag pairs of the game
+     * @param startFen FEN of the position the game starts from
+     * @param moves moves of the game
+     * @param result result of the game: "1-0", "0-1", "1/2-1/2" or "*"
+     * @throws IllegalArgumentException if a move is not legal
+     * @return the encoded game
+     */
+    public static ArchivedGame encode(Map<String, String> tags, String startFen, List<Move> moves, String result) {
+        ChessGame game = ChessGame.fromFen(startFen);
+        byte[] encoded = new byte[moves.size()];
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = (byte) MoveCodec.encode(game, moves.get(i));
+            game.attemptMove(moves.get(i));
+        }
+        return new ArchivedGame(tags, startFen, result, encoded);
+    }
+
+    /**
+     * Encode a game read from PGN. Its FEN and SetUp tags become its starting position.
+     * @param pgn game read by a PgnReader
+     * @throws IllegalArgumentException if a move is not a legal move in SAN
+     * @return the encoded game
+     */
+    public static ArchivedGame fromPgn(PgnGame pgn) {
+        ChessGame game = ChessGame.fromFen(pgn.getStartFen());
+        List<String> sanMoves = pgn.getSanMoves();
+        byte[] encoded = new byte[sanMoves.size()];
+        for (int i = 0; i < encoded.length; i++) {
+            Move move;
+            try {
+                move = San.fromSan(game, sanMoves.get(i));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(e.getMessage() + " at ply " + (i + 1) + " of game at offset "
+                        + pgn.getOffset());
+            }
+            encoded[i] = (byte) MoveCodec.encode(game, move);
+            game.attemptMove(move);
+        }
+        Map<String, String> tags = new LinkedHashMap<>(pgn.getTags());
+        tags.remove("SetUp");
+        tags.remove("FEN");
+        tags.remove("Result");
+        return new ArchivedGame(tags, pgn.getStartFen(), pgn.getResult(), encoded);
+    }
+
+    /**
+     * Returns the value of a tag.
+     * @param name tag name
+     * @return tag value, or null if the game does not have the tag
+     */
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    public Map<String, String> getTags() {
+        return Collections.unmodifiableMap(tags);
+    }
+
+    public String getStartFen() {
+        return startFen;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public int getPlyCount() {
+        return moves.length;
+    }
+
+    /**
+     * Returns the moves of the game as encoded by MoveCodec.
+     * @return a copy of the encoded moves
+     */
+    public byte[] getEncodedMoves() {
+        return moves.clone();
+    }
+
+    /**
+     * Returns the moves of the game.
+     * @return decoded moves
+     */
+    public List<Move> getMoves() {
+        List<Move> decoded = new ArrayList<>(moves.length);
+        replay(null, decoded);
+        return decoded;
+    }
+
+    /**
+     * Play the moves of the game from its starting position, showing the position before the
+     * first move and after each move to the given visitor. The visitor must not change the game.
+     * @param visitor visitor of the positions, or null
+     * @return game after the last move
+     */
+    public ChessGame replay(Consumer<ChessGame> visitor) {
+        return replay(visitor, null);
+    }
+
+    // Replay the game, showing each position to the visitor and adding each move to the list if
+    // they are not null.
+    private ChessGame replay(Consumer<ChessGame> visitor, List<Move> decoded) {
+        ChessGame game = ChessGame.fromFen(startFen);
+        if (visitor != null) {
+            visitor.accept(game);
+        }
+        for (byte index : moves) {
+            Move move = MoveCodec.decode(game, index & 0xFF);
+            game.attemptMove(move);
+            if (decoded != null) {
+                decoded.add(move);
+            }
+            if (visitor != null) {
+                visitor.accept(game);
+            }
+        }
+        return game;
+    }
+}
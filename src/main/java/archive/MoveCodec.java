@@ -0,0 +1,139 @@
+package archive;
+
+import functionality.BoardCoordinate;
+import functionality.ChessBoard;
+import functionality.ChessGame;
+import functionality.ChessPiece;
+import functionality.Move;
+import functionality.Pawn;
+import functionality.RelativeMove;
+
+import java.util.Arrays;
+
+/**
+ * Encoding of a move as its index in the ordered list of the legal moves of a position: the legal
+ * moves sorted by their code (Move.toCode), a pawn move to the last row counting as one move per
+ * promotion piece. No position has 256 such moves, so a move fits in one byte.
+ *
+ * Testing a move for legality is what costs, so encoding and decoding do not list the legal moves:
+ * they go through the moves the pieces could make in the same order, and only test those up to
+ * the move wanted.
+ */
+public final class MoveCodec {
+    // Promotion pieces a pawn move to the last row is expanded to.
+    private static final String PROMOTION_PIECES = "qrbn";
+
+    private MoveCodec() { }
+
+    /**
+     * Returns the codes of the legal moves of the team to move, in ascending order.
+     * @param game game in the position to list the moves of
+     * @return sorted move codes
+     */
+    public static int[] orderedCodes(ChessGame game) {
+        int[] codes = new int[64];
+        int count = 0;
+        for (Move move : game.getPossibleMoves()) {
+            boolean promotion = move.getSecond().r % 7 == 0 && game.getPieceAt(move.getFirst()) instanceof Pawn;
+            for (int i = 0; i < (promotion ? PROMOTION_PIECES.length() : 1); i++) {
+                if (count == codes.length) {
+                    codes = Arrays.copyOf(codes, codes.length * 2);
+                }
+                codes[count++] = promotion
+                        ? new Move(move.getFirst(), move.getSecond(), PROMOTION_PIECES.charAt(i)).toCode()
+                        : move.toCode();
+            }
+        }
+        codes = Arrays.copyOf(codes, count);
+        Arrays.sort(codes);
+        return codes;
+    }
+
+    /**
+     * Returns the index of a legal move in the ordered list of legal moves.
+     * @param game game in the position the move is made from
+     * @param move legal move, with its promotion piece if it promotes a pawn
+     * @throws IllegalArgumentException if the move is not legal
+     * @return index of the move, between 0 and 255
+     */
+    public static int encode(ChessGame game, Move move) {
+        int code = move.toCode();
+        int index = 0;
+        int previous = 0;
+        for (int candidate : candidateCodes(game)) {
+            if (candidate > code) {
+                break;
+            }
+            if (candidate != previous && isLegal(game, candidate)) {
+                if (candidate == code) {
+                    if (index > 255) {
+                        throw new IllegalArgumentException("Too many legal moves to encode " + move);
+                    }
+                    return index;
+                }
+                index++;
+            }
+            previous = candidate;
+        }
+        throw new IllegalArgumentException("Illegal move " + move);
+    }
+
+    /**
+     * Returns the legal move at an index of the ordered list of legal moves.
+     * @param game game in the position the move is made from
+     * @param index index of the move
+     * @throws IllegalArgumentException if there is no legal move at the index
+     * @return the move, with its promotion piece if it promotes a pawn
+     */
+    public static Move decode(ChessGame game, int index) {
+        int count = 0;
+        int previous = 0;
+        for (int candidate : candidateCodes(game)) {
+            if (candidate != previous && isLegal(game, candidate) && count++ == index) {
+                return Move.fromCode(candidate);
+            }
+            previous = candidate;
+        }
+        throw new IllegalArgumentException("No legal move " + index + " in " + game.toFen());
+    }
+
+    // Returns the sorted codes of the moves the pieces of the team to move could make by their
+    // relative moves to squares not held by their own team, some more than once.
+    private static int[] candidateCodes(ChessGame game) {
+        int[] codes = new int[128];
+        int count = 0;
+        for (int i = 0; i < 64; i++) {
+            BoardCoordinate src = new BoardCoordinate(i);
+            ChessPiece piece = game.getPieceAt(src);
+            if (piece == null || piece.getColor() != game.currentTurn()) {
+                continue;
+            }
+            for (RelativeMove rm : piece.relativeMoves()) {
+                BoardCoordinate dest = src.add(rm);
+                if (!ChessBoard.isOnBoard(dest)) {
+                    continue;
+                }
+                ChessPiece destPiece = game.getPieceAt(dest);
+                if (destPiece != null && destPiece.getColor() == piece.getColor()) {
+                    continue;
+                }
+                boolean promotion = dest.r % 7 == 0 && piece instanceof Pawn;
+                if (count + PROMOTION_PIECES.length() > codes.length) {
+                    codes = Arrays.copyOf(codes, codes.length * 2);
+                }
+                for (int p = 0; p < (promotion ? PROMOTION_PIECES.length() : 1); p++) {
+                    codes[count++] = promotion ? new Move(src, dest, PROMOTION_PIECES.charAt(p)).toCode()
+                            : new Move(src, dest).toCode();
+                }
+            }
+        }
+        codes = Arrays.copyOf(codes, count);
+        Arrays.sort(codes);
+        return codes;
+    }
+
+    private static boolean isLegal(ChessGame game, int code) {
+        Move move = Move.fromCode(code);
+        return game.isMoveLegal(move.getFirst(), move.getSecond());
+    }
+}
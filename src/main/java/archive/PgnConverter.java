@@ -0,0 +1,132 @@
+package archive;
+
+import pgn.PgnGame;
+import pgn.PgnReader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Converter of a PGN file to a binary game archive, keeping the order of the games.
+ *
+ * One thread reads the PGN file while workers resolve and encode the moves of the games, which is
+ * where the time goes. Encoded games are added to the archive in the order they were read, with a
+ * bounded number of games in flight. Games with an illegal move are left out.
+ *
+ * Usage: PgnConverter pgn-file archive-file [threads]
+ */
+public class PgnConverter {
+    // Games being encoded at once, per worker.
+    private static final int IN_FLIGHT_PER_THREAD = 64;
+
+    private final int threads;
+    // Messages of the illegal moves of the games left out by the last conversion.
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+
+    /**
+     * Create a converter.
+     * @param threads number of threads encoding games
+     */
+    public PgnConverter(int threads) {
+        this.threads = threads;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Path pgn = Paths.get(args[0]);
+        Path archive = Paths.get(args[1]);
+        PgnConverter converter = new PgnConverter(threads);
+        long start = System.nanoTime();
+        long games = converter.convert(pgn, archive);
+        long millis = (System.nanoTime() - start) / 1000000;
+        for (String error : converter.getErrors()) {
+            System.err.println(error);
+        }
+        long pgnSize = Files.size(pgn);
+        long archiveSize = Files.size(archive);
+        System.out.printf("%d games (%d left out) in %d ms: %d bytes to %d bytes (%.1fx)%n", games,
+                converter.getErrorCount(), millis, pgnSize, archiveSize, (double) pgnSize / Math.max(1, archiveSize));
+    }
+
+    /**
+     * Convert every game of a PGN file.
+     * @param pgn PGN file
+     * @param archive archive file to write
+     * @throws IOException if a file cannot be read or written
+     * @return number of games written to the archive
+     */
+    public long convert(Path pgn, Path archive) throws IOException {
+        errors.clear();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        Deque<CompletableFuture<ArchivedGame>> inFlight = new ArrayDeque<>();
+        try (PgnReader reader = PgnReader.open(pgn); ArchiveWriter writer = new ArchiveWriter(archive)) {
+            PgnGame game;
+            while ((game = reader.next()) != null) {
+                PgnGame read = game;
+                inFlight.add(CompletableFuture.supplyAsync(() -> encode(read), workers));
+                if (inFlight.size() == threads * IN_FLIGHT_PER_THREAD) {
+                    addNext(inFlight, writer);
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                addNext(inFlight, writer);
+            }
+            return writer.getGameCount();
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Returns the number of games of the last conversion that were left out for an illegal move.
+     * @return error count
+     */
+    public long getErrorCount() {
+        return errors.size();
+    }
+
+    /**
+     * Returns why each game of the last conversion was left out.
+     * @return messages of the illegal moves found, in no particular order
+     */
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    // Returns the encoded game, or null if it has an illegal move.
+    private ArchivedGame encode(PgnGame game) {
+        try {
+            return ArchivedGame.fromPgn(game);
+        } catch (IllegalArgumentException e) {
+            errors.add(e.getMessage());
+            return null;
+        }
+    }
+
+    // Wait for the oldest game in flight to be encoded and add it to the archive.
+    private static void addNext(Deque<CompletableFuture<ArchivedGame>> inFlight, ArchiveWriter writer)
+            throws IOException {
+        ArchivedGame game;
+        try {
+            game = inFlight.remove().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        }
+        if (game != null) {
+            writer.add(game);
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package bot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of the results of root searches that persists across restarts: for a position key, the
+ * deepest search made of the position, with its score and principal variation (whose first move
+ * is the best move). A search root consults the cache before searching (see
+ * MinimaxTreeExplorer.setAnalysisCache), and only searches if it has no result at least as deep.
+ *
+ * The cache is a directory holding an index file and a log file. The index holds the entries
+ * sorted by key in records of fixed size, and is memory-mapped when the cache is opened, so that
+ * opening reads nothing but the log and a lookup is a binary search of the mapped file. New
+ * results are kept in memory and appended to the log by a background thread (write-behind), so
+ * that searches never wait for the disk; the log is read back when the cache is opened again, and
+ * merged into a new index when the cache is closed. Safe to use from several threads at once.
+ *
+ * Index files are numbered by generation. Closing the cache writes the merged index as the next
+ * generation instead of replacing the mapped file, which some platforms do not allow, and opening
+ * the cache maps the latest generation and deletes the older ones.
+ */
+public class AnalysisCache implements Closeable {
+    /**
+     * Number of moves of a principal variation that are kept.
+     */
+    public static final int MAX_PV_LENGTH = 16;
+
+    private static final int MAGIC = 0x41434348;
+    private static final int VERSION = 1;
+    // Magic number, version and entry count.
+    private static final int HEADER_SIZE = 16;
+    // Key, depth, principal variation length, score and principal variation.
+    private static final int RECORD_SIZE = 8 + 2 + 2 + 4 + 2 * MAX_PV_LENGTH;
+    private static final String INDEX_PREFIX = "analysis-";
+    private static final String INDEX_SUFFIX = ".idx";
+    private static final String LOG_FILE = "analysis.log";
+    // Records appended to the log at once.
+    private static final int LOG_BATCH = 256;
+    // Queued to stop the log writer.
+    private static final Entry END = new Entry(0, 0, 0, new int[0]);
+
+    private final Path dir;
+    // Generation of the mapped index, or 0 if there is none.
+    private final long generation;
+    private final FileChannel indexChannel;
+    private final MappedByteBuffer index;
+    private final int indexCount;
+    private final FileChannel log;
+    // Entries added since the index was written, including those read back from the log.
+    private final Map<Long, Entry> recent = new ConcurrentHashMap<>();
+    private final BlockingQueue<Entry> pending = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final AtomicLong queued = new AtomicLong();
+    // Number of entries appended to the log, guarded by this object's lock.
+    private long logged;
+    private volatile IOException writeError;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Result of a search stored in the cache.
+     */
+    public static final class Entry {
+        private final long key;
+        private final int depth;
+        private final int score;
+        private final int[] pv;
+
+        Entry(long key, int depth, int score, int[] pv) {
+            this.key = key;
+            this.depth = depth;
+            this.score = score;
+            this.pv = pv;
+        }
+
+        public long getKey() {
+            return key;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Returns the score of the position for the team to move.
+         * @return score in the units of the evaluator that searched it
+         */
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * Returns the principal variation found, as move codes.
+         * @return a copy of the principal variation, best move first
+         */
+        public int[] getPv() {
+            return pv.clone();
+        }
+
+        public int getBestMove() {
+            return pv[0];
+        }
+    }
+
+    private AnalysisCache(Path dir) throws IOException {
+        this.dir = dir;
+        this.generation = latestGeneration(dir);
+        Path indexFile = indexFile(generation);
+        if (generation > 0) {
+            this.indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && indexChannel.read(header, header.position()) >= 0) {
+                // Read on.
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                indexChannel.close();
+                throw new IOException("Not an analysis cache index: " + indexFile);
+            }
+            this.indexCount = (int) header.getLong();
+            this.index = indexChannel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, (long) indexCount * RECORD_SIZE);
+        } else {
+            this.indexChannel = null;
+            this.index = null;
+            this.indexCount = 0;
+        }
+
+        this.log = FileChannel.open(dir.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        readLog();
+        this.writer = new Thread(this::writeLog, "analysis-cache-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Open the cache in a directory, creating it if needed. Only one cache may use a directory at
+     * a time.
+     * @param dir cache directory
+     * @throws IOException if the cache cannot be read
+     * @return the cache
+     */
+    public static AnalysisCache open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        return new AnalysisCache(dir);
+    }
+
+    /**
+     * Returns the result of the deepest search of a position, if it is at least as deep as given.
+     * @param key position key
+     * @param minDepth depth the result must have been searched to
+     * @return the result, or null if there is none deep enough
+     */
+    public Entry get(long key, int minDepth) {
+        Entry entry = find(key);
+        if (entry != null && entry.depth >= minDepth) {
+            hits.incrementAndGet();
+            return entry;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Store the result of a search, unless the cache holds a deeper one. The result is written to
+     * disk in the background.
+     * @param key position key
+     * @param depth depth the position was searched to
+     * @param score score of the position for the team to move
+     * @param pv principal variation as move codes, best move first, of which the first
+     *           MAX_PV_LENGTH are kept
+     */
+    public void put(long key, int depth, int score, int[] pv) {
+        if (pv.length == 0) {
+            return;
+        }
+        Entry existing = find(key);
+        if (existing != null && existing.depth > depth) {
+            return;
+        }
+        Entry entry = new Entry(key, depth, score, Arrays.copyOf(pv, Math.min(pv.length, MAX_PV_LENGTH)));
+        // Another thread may have stored a deeper result since the lookup.
+        if (recent.merge(key, entry, (old, added) -> added.depth >= old.depth ? added : old) == entry) {
+            queued.incrementAndGet();
+            pending.add(entry);
+        }
+    }
+
+    /**
+     * Wait until every result stored so far has been written to the log.
+     * @throws IOException if the log could not be written
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void flush() throws IOException, InterruptedException {
+        long target = queued.get();
+        synchronized (this) {
+            while (logged < target && writeError == null && writer.isAlive()) {
+                wait();
+            }
+        }
+        if (writeError != null) {
+            throw writeError;
+        }
+    }
+
+    /**
+     * Returns the number of positions in the cache.
+     * @return entry count, counting a position both in the index and added since once per copy
+     */
+    public long size() {
+        return indexCount + recent.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Write the pending results, merge the log into a new index and close the cache.
+     * @throws IOException if the cache cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        pending.add(END);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (writeError != null) {
+                throw writeError;
+            }
+            if (!recent.isEmpty()) {
+                writeIndex();
+                log.truncate(0);
+            }
+        } finally {
+            log.close();
+            if (indexChannel != null) {
+                indexChannel.close();
+            }
+        }
+    }
+
+    // Returns the entry of a position, added since the index was written or from the index.
+    private Entry find(long key) {
+        Entry entry = recent.get(key);
+        if (entry != null || index == null) {
+            return entry;
+        }
+        int low = 0;
+        int high = indexCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleKey = index.getLong(middle * RECORD_SIZE);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return readRecord(index, middle * RECORD_SIZE);
+            }
+        }
+        return null;
+    }
+
+    // Read back the entries of the log, dropping a record left incomplete by a crash.
+    private void readLog() throws IOException {
+        long complete = log.size() / RECORD_SIZE * RECORD_SIZE;
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * LOG_BATCH);
+        long position = 0;
+        while (position < complete) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), complete - position));
+            while (buffer.hasRemaining()) {
+                log.read(buffer, position + buffer.position());
+            }
+            for (int at = 0; at < buffer.limit(); at += RECORD_SIZE) {
+                Entry entry = readRecord(buffer, at);
+                Entry existing = find(entry.key);
+                if (existing == null || existing.depth <= entry.depth) {
+                    recent.put(entry.key, entry);
+                }
+            }
+            position += buffer.limit();
+        }
+        log.truncate(complete);
+        log.position(complete);
+    }
+
+    // Append queued entries to the log until the end marker is queued.
+    private void writeLog() {
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * LOG_BATCH);
+        List<Entry> batch = new ArrayList<>(LOG_BATCH);
+        boolean end = false;
+        try {
+            while (!end) {
+                batch.add(pending.take());
+                pending.drainTo(batch, LOG_BATCH - 1);
+                buffer.clear();
+                int count = 0;
+                for (Entry entry : batch) {
+                    if (entry == END) {
+                        end = true;
+                    } else {
+                        writeRecord(buffer, entry);
+                        count++;
+                    }
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    log.write(buffer);
+                }
+                batch.clear();
+                synchronized (this) {
+                    logged += count;
+                    notifyAll();
+                }
+            }
+        } catch (IOException e) {
+            writeError = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    // Write the entries of the index and those added since to a new index file, which replaces
+    // the old one once it is complete.
+    private void writeIndex() throws IOException {
+        Entry[] added = recent.values().toArray(new Entry[0]);
+        Arrays.sort(added, (a, b) -> Long.compare(a.key, b.key));
+        Path temp = dir.resolve(INDEX_PREFIX + (generation + 1) + ".tmp");
+        long count = 0;
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * LOG_BATCH);
+            out.position(HEADER_SIZE);
+            int i = 0;
+            int j = 0;
+            while (i < indexCount || j < added.length) {
+                long indexKey = i < indexCount ? index.getLong(i * RECORD_SIZE) : Long.MAX_VALUE;
+                Entry entry;
+                if (j < added.length && (i == indexCount || added[j].key <= indexKey)) {
+                    entry = added[j++];
+                    if (entry.key == indexKey) {
+                        // Entries are only added when at least as deep as those in the index.
+                        i++;
+                    }
+                } else {
+                    entry = readRecord(index, i++ * RECORD_SIZE);
+                }
+                if (!buffer.hasRemaining()) {
+                    write(out, buffer);
+                }
+                writeRecord(buffer, entry);
+                count++;
+            }
+            write(out, buffer);
+            buffer.clear();
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(count);
+            out.position(0);
+            write(out, buffer);
+            out.force(true);
+        }
+        Files.move(temp, indexFile(generation + 1), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path indexFile(long generation) {
+        return dir.resolve(INDEX_PREFIX + generation + INDEX_SUFFIX);
+    }
+
+    // Returns the latest generation of the index files in a directory, or 0 if there are none, and
+    // deletes the files of earlier generations and of unfinished ones.
+    private static long latestGeneration(Path dir) throws IOException {
+        List<Path> stale = new ArrayList<>();
+        Path latestFile = null;
+        long latest = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, INDEX_PREFIX + "*")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long fileGeneration = generation(name);
+                if (fileGeneration > latest) {
+                    if (latestFile != null) {
+                        stale.add(latestFile);
+                    }
+                    latest = fileGeneration;
+                    latestFile = file;
+                } else if (fileGeneration > 0 || name.endsWith(".tmp")) {
+                    stale.add(file);
+                }
+            }
+        }
+        for (Path file : stale) {
+            Files.deleteIfExists(file);
+        }
+        return latest;
+    }
+
+    // Returns the generation of an index file from its name, or 0 if it is not an index file.
+    private static long generation(String name) {
+        if (!name.startsWith(INDEX_PREFIX) || !name.endsWith(INDEX_SUFFIX)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(name.substring(INDEX_PREFIX.length(), name.length() - INDEX_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void write(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void writeRecord(ByteBuffer buffer, Entry entry) {
+        buffer.putLong(entry.key).putShort((short) entry.depth).putShort((short) entry.pv.length)
+                .putInt(entry.score);
+        for (int i = 0; i < MAX_PV_LENGTH; i++) {
+            buffer.putShort(i < entry.pv.length ? (short) entry.pv[i] : 0);
+        }
+    }
+
+    private static Entry readRecord(ByteBuffer buffer, int at) {
+        long key = buffer.getLong(at);
+        int depth = buffer.getShort(at + 8);
+        int[] pv = new int[buffer.getShort(at + 10)];
+        int score = buffer.getInt(at + 12);
+        for (int i = 0; i < pv.length; i++) {
+            pv[i] = buffer.getShort(at + 16 + 2 * i) & 0xFFFF;
+        }
+        return new Entry(key, depth, score, pv);
+    }
+}
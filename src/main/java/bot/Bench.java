@@ -0,0 +1,63 @@
+package bot;
+
+import functionality.ChessGame;
+import functionality.Move;
+import functionality.TeamColor;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Command line benchmark that searches a fixed set of positions to a fixed depth and reports the
+ * number of nodes visited and the time taken, so that changes to the search can be compared.
+ *
+ * Usage: Bench [depth] [-nullmove] [-lmr] [-futility] [-rfp] [-id] [-aspiration]
+ *
+ * All search techniques are enabled unless disabled by the corresponding option.
+ */
+public class Bench {
+    private static final int DEFAULT_DEPTH = 5;
+    private static final String[] POSITIONS = {
+            "standardLayout.txt",
+            "endgameExample.txt",
+            "endgameExample2.txt",
+            "almostPawnPromotion.txt",
+            "botPawnPromotion.txt"
+    };
+
+    public static void main(String[] args) {
+        // The depth is optional, so only a numeric first argument is taken as the depth.
+        boolean hasDepth = args.length > 0 && args[0].matches("\\d+");
+        int depth = hasDepth ? Integer.parseInt(args[0]) : DEFAULT_DEPTH;
+        List<String> disabled = Arrays.asList(args).subList(hasDepth ? 1 : 0, args.length);
+        long totalNodes = 0;
+        long totalMillis = 0;
+        int totalResearches = 0;
+
+        for (String position : POSITIONS) {
+            ChessGame game = ChessGame.fromResource(position, TeamColor.WHITE);
+            MinimaxTreeExplorer<ChessGame> explorer = new MinimaxTreeExplorer<>(
+                    new PieceSquareEvaluator(), new ChessDelegate(), game.currentTurn(), game, depth);
+            explorer.setNullMovePruning(!disabled.contains("-nullmove"));
+            explorer.setLateMoveReductions(!disabled.contains("-lmr"));
+            explorer.setFutilityPruning(!disabled.contains("-futility"));
+            explorer.setReverseFutilityPruning(!disabled.contains("-rfp"));
+            explorer.setIterativeDeepening(!disabled.contains("-id"));
+            explorer.setAspirationWindows(!disabled.contains("-aspiration"));
+            long start = System.nanoTime();
+            ChessGame best = explorer.getNextBestNode();
+            long millis = (System.nanoTime() - start) / 1000000;
+            Move move = best == null ? null : best.getLastMove();
+
+            System.out.printf("%-45s %-10s %12d nodes %8d ms %4d fail lows %4d fail highs%n", position,
+                    move == null ? "-" : move.getFirst().toAlgebraic() + move.getSecond().toAlgebraic(),
+                    explorer.getNodeCount(), millis, explorer.getAspirationFailLows(),
+                    explorer.getAspirationFailHighs());
+            totalNodes += explorer.getNodeCount();
+            totalMillis += millis;
+            totalResearches += explorer.getAspirationFailLows() + explorer.getAspirationFailHighs();
+        }
+        System.out.printf("Total: %d nodes, %d ms, %d nodes/s, %d aspiration re-searches%n", totalNodes,
+                totalMillis, totalMillis == 0 ? 0 : totalNodes * 1000 / totalMillis, totalResearches);
+    }
+}
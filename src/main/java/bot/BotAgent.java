@@ -5,15 +5,57 @@ import functionality.Move;
 import functionality.TeamColor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 /**
  * Class responsible for acting as the robot player.
+ *
+ * Searches can be run in the background with 'getNextMoveAsync' and 'getNextMovesAsync', which
+ * stop at a deadline or after a number of nodes, returning the best moves found by then. Cancelling
+ * the returned future stops the search.
+ *
+ * After the bot's move has been played, 'startPondering' searches the position after the reply the
+ * bot expects in the background while the opponent thinks. If the opponent plays that reply (a
+ * ponder hit), the next request for a move waits for the search already under way instead of
+ * starting a new one. Otherwise the background search is stopped and a new one is started.
+ *
+ * The bot plays at a given strength. Except at the default strength, each search is limited to the
+ * strength's node budget rather than to a fixed depth, including searches made while pondering.
+ *
+ * The explorer keeps its transposition table and move ordering heuristics between moves, and
+ * each search tries the rest of the previous principal variation first when the opponent played
+ * the expected reply.
  */
 public class BotAgent {
+    // Depth searched to within a node budget, which the budget is always used up before.
+    private static final int BUDGET_MAX_DEPTH = 64;
+    private static final int DEFAULT_DEPTH = 4;
+
     private ChessGame game;
     private TeamColor team;
+    private Strength strength;
     private MinimaxTreeExplorer<ChessGame> explorer;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "bot-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Number of moves the last search was asked for, so that pondering searches for as many.
+    private int lineCount = 1;
+    private int[] lastPv = new int[0];
+    private CompletableFuture<List<MinimaxTreeExplorer<ChessGame>.NodeValue>> ponderSearch;
+    private long ponderKey;
+    // Depth set by 'setMaxDepth', or 0 to choose the depth by the number of pieces left.
+    private int maxDepth;
+    // Whether the search of the current request has been stopped, which is only set again when a
+    // new request is made, so that a stop arriving before its search starts is not lost.
+    private volatile boolean stopRequested;
 
     /**
      * Create a new bot that will act a player in the provided game on the specified team.
@@ -21,22 +63,52 @@ public class BotAgent {
      * @param team the bot's team
      */
     public BotAgent(ChessGame game, TeamColor team) {
+        this(game, team, Strength.DEFAULT);
+    }
+
+    /**
+     * Create a new bot that will act a player in the provided game on the specified team, playing
+     * at the given strength.
+     * @param game chess game for the bot to play in
+     * @param team the bot's team
+     * @param strength the bot's playing strength
+     */
+    public BotAgent(ChessGame game, TeamColor team, Strength strength) {
+        this(game, team, strength, new NaiveUtilityEvaluator());
+    }
+
+    /**
+     * Create a new bot that will act a player in the provided game on the specified team, playing
+     * at the given strength and judging positions with the given evaluator.
+     * @param game chess game for the bot to play in
+     * @param team the bot's team
+     * @param strength the bot's playing strength
+     * @param evaluator evaluator of the positions searched by the bot
+     */
+    public BotAgent(ChessGame game, TeamColor team, Strength strength, ScoreEvaluator<ChessGame> evaluator) {
         this.game = game;
         this.team = team;
-        this.explorer = new MinimaxTreeExplorer<>(new NaiveUtilityEvaluator(), new ChessDelegate(), team, game, 4);
+        this.strength = strength;
+        this.explorer = new MinimaxTreeExplorer<>(new CachedEvaluator(evaluator), new ChessDelegate(), team, game,
+                DEFAULT_DEPTH);
+        explorer.setFutilityPruning(true);
+        explorer.setReverseFutilityPruning(true);
+        explorer.setIterativeDeepening(true);
+        explorer.setRootNoise(strength.getNoise(), new Random());
     }
 
     /**
      * Get the next best move for the bot's team given the current state of the chess game.
-     * @throws IllegalStateException if it is not the bot's turn when this method is called
+     * @throws IllegalStateException if it is not the bot's turn when this method is called, or if
+     *                               the bot has no legal move
      * @return Move object representing the next best move for the bot
      */
     public Move getNextMove() {
         if (game.currentTurn() != team) {
             throw new IllegalStateException("Not the bot's turn.");
         }
-        ChessGame nextState = explorer.getNextBestNode();
-        return nextState.getLastMove();
+        clearStop();
+        return bestMove(search(1, 0, strength.getNodeLimit()));
     }
 
     /**
@@ -45,36 +117,307 @@ public class BotAgent {
      *         utility for the bot's team
      */
     public List<MoveUtility> getNextMoves() {
-        if (game.totalPiecesLeft() < 8) {
-            explorer.setMaxDepth(6);
-        } else if (game.totalPiecesLeft() < 12) {
-            explorer.setMaxDepth(5);
+        if (game.currentTurn() != team) {
+            throw new IllegalStateException("Not the bot's turn.");
         }
+        clearStop();
+        return toMoveUtilities(search(3, 0, strength.getNodeLimit()));
+    }
+
+    /**
+     * Search for the next best move for the bot's team in the background. The game must not be
+     * changed until the returned future completes.
+     * @param timeLimitMillis time after which the search stops, or 0 for no limit
+     * @param nodeLimit number of nodes after which the search stops, or 0 for the strength's limit
+     * @throws IllegalStateException if it is not the bot's turn when this method is called
+     * @return future completed with the best move found, which stops the search when cancelled, or
+     *         completed exceptionally with an IllegalStateException if the bot has no legal move
+     */
+    public CompletableFuture<Move> getNextMoveAsync(long timeLimitMillis, long nodeLimit) {
+        if (game.currentTurn() != team) {
+            throw new IllegalStateException("Not the bot's turn.");
+        }
+        long limit = nodeLimit(nodeLimit);
+        return submit(() -> bestMove(search(1, timeLimitMillis, limit)));
+    }
 
+    /**
+     * Search for up to three of the next best moves for the bot's team in the background. The game
+     * must not be changed until the returned future completes.
+     * @param timeLimitMillis time after which the search stops, or 0 for no limit
+     * @param nodeLimit number of nodes after which the search stops, or 0 for the strength's limit
+     * @throws IllegalStateException if it is not the bot's turn when this method is called
+     * @return future completed with the best moves found, which stops the search when cancelled
+     */
+    public CompletableFuture<List<MoveUtility>> getNextMovesAsync(long timeLimitMillis, long nodeLimit) {
+        return getNextMovesAsync(3, timeLimitMillis, nodeLimit);
+    }
+
+    /**
+     * Search for up to the given number of next best moves for the bot's team in the background.
+     * The game must not be changed until the returned future completes.
+     * @param count number of moves to find
+     * @param timeLimitMillis time after which the search stops, or 0 for no limit
+     * @param nodeLimit number of nodes after which the search stops, or 0 for the strength's limit
+     * @throws IllegalStateException if it is not the bot's turn when this method is called
+     * @return future completed with the best moves found, which stops the search when cancelled
+     */
+    public CompletableFuture<List<MoveUtility>> getNextMovesAsync(int count, long timeLimitMillis, long nodeLimit) {
         if (game.currentTurn() != team) {
             throw new IllegalStateException("Not the bot's turn.");
         }
-        List<MinimaxTreeExplorer<ChessGame>.NodeValue> nextStates = explorer.getNextBestNodes();
+        long limit = nodeLimit(nodeLimit);
+        return submit(() -> toMoveUtilities(search(count, timeLimitMillis, limit)));
+    }
+
+    /**
+     * Set the game the bot plays in, keeping what it has learned in earlier searches. Stops
+     * pondering.
+     * @param game chess game for the bot to play in
+     */
+    public synchronized void setGame(ChessGame game) {
+        stopPondering();
+        this.game = game;
+    }
+
+    /**
+     * Set the depth the bot searches to.
+     * @param maxDepth max number of moves to look ahead, or 0 to choose it by the number of pieces
+     *                 left (or by the node budget of the bot's strength)
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Set the listener told about every line completed by the bot's searches.
+     * @param listener search listener, or null for none
+     */
+    public void setSearchListener(SearchListener listener) {
+        explorer.setSearchListener(listener);
+    }
+
+    /**
+     * Set the cache of analysed positions the bot looks up before searching and stores its results
+     * in, so that it does not start cold after a restart. Only searches to a fixed depth without
+     * noise, as made at the default strength, can be answered from the cache.
+     * @param cache analysis cache, or null for none
+     */
+    public void setAnalysisCache(AnalysisCache cache) {
+        explorer.setAnalysisCache(cache);
+    }
+
+    /**
+     * Stop the search in progress when the given time has passed, counted from now.
+     * @param timeLimitMillis time after which the search stops
+     */
+    public void limitSearchTime(long timeLimitMillis) {
+        explorer.setDeadline(System.nanoTime() + timeLimitMillis * 1000000);
+    }
+
+    /**
+     * Stop the search in progress, which then completes with the best moves found so far. Also
+     * stops the search of the current request if it has not started yet.
+     */
+    public void stopSearch() {
+        stopRequested = true;
+        explorer.stop();
+    }
+
+    /**
+     * Start searching, in the background, the position after the opponent's reply that the last
+     * search expects. Meant to be called once the bot's move has been played in the game. Does
+     * nothing if the last search did not expect a reply or the game is over.
+     */
+    public synchronized void startPondering() {
+        stopPondering();
+        clearStop();
+        clearExplorerStop();
+        if (lastPv.length < 2 || game.isGameOver() || game.currentTurn() == team) {
+            return;
+        }
+        ChessGame position = game.copy();
+        Move reply = Move.fromCode(lastPv[1]);
+        ChessGame.MoveOutcome outcome = position.attemptMove(reply.getFirst(), reply.getSecond());
+        if (outcome == ChessGame.MoveOutcome.FAILURE) {
+            return;
+        }
+        if (outcome == ChessGame.MoveOutcome.PAWN_PROMOTION) {
+            position.promotePawn(reply.getPawnPromotion() == 0 ? 'q' : reply.getPawnPromotion());
+        }
+        if (position.isGameOver()) {
+            return;
+        }
+
+        int lines = lineCount;
+        ponderKey = position.getKey();
+        setDepth(position);
+        explorer.setRoot(position);
+        explorer.setExpectedLine(Arrays.copyOfRange(lastPv, 2, lastPv.length));
+        explorer.setDeadline(0);
+        explorer.setNodeLimit(strength.getNodeLimit());
+        ponderSearch = CompletableFuture.supplyAsync(() -> explorer.getNextBestNodes(lines), executor);
+    }
+
+    /**
+     * Stop the background search started by 'startPondering', if any, and wait for it to end.
+     */
+    public synchronized void stopPondering() {
+        if (ponderSearch == null) {
+            return;
+        }
+        explorer.stop();
+        ponderSearch.join();
+        ponderSearch = null;
+        clearExplorerStop();
+    }
+
+    /**
+     * Stop any search in progress and release the threads used for searching. The bot cannot
+     * search after this.
+     */
+    public void shutdown() {
+        stopSearch();
+        executor.shutdownNow();
+    }
+
+    // Start a new request, whose search runs until stopped. The explorer's stop flag is only
+    // cleared once the request's search holds the agent's lock, since a search being stopped (such
+    // as a ponder search being waited for by 'stopPondering') must not be let run on.
+    private void clearStop() {
+        stopRequested = false;
+    }
+
+    // Let the explorer search again, unless a stop was requested for the current request. Must be
+    // called holding the agent's lock.
+    private void clearExplorerStop() {
+        explorer.clearStop();
+        if (stopRequested) {
+            explorer.stop();
+        }
+    }
+
+    // Run a search on the executor. Cancelling the returned future stops the search.
+    private <R> CompletableFuture<R> submit(Supplier<R> task) {
+        clearStop();
+        CompletableFuture<R> future = new CompletableFuture<>();
+        future.whenComplete((result, e) -> {
+            if (future.isCancelled()) {
+                stopSearch();
+            }
+        });
+        executor.execute(() -> {
+            if (future.isDone()) {
+                return;
+            }
+            try {
+                future.complete(task.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    // Returns the results of searching the game for the given number of moves within the given
+    // limits, taking them from the background search if it was searching the current position for
+    // as many moves.
+    private synchronized List<MinimaxTreeExplorer<ChessGame>.NodeValue> search(int lines, long timeLimitMillis,
+                                                                               long nodeLimit) {
+        explorer.setDeadline(timeLimitMillis > 0 ? System.nanoTime() + timeLimitMillis * 1000000 : 0);
+        explorer.setNodeLimit(nodeLimit);
+        List<MinimaxTreeExplorer<ChessGame>.NodeValue> result;
+        if (ponderSearch != null && ponderKey == game.getKey() && lines == lineCount) {
+            // Ponder hit: let the search that is already under way finish, within the limits.
+            result = ponderSearch.join();
+            ponderSearch = null;
+        } else {
+            stopPondering();
+            clearExplorerStop();
+            setDepth(game);
+            explorer.setRoot(game);
+            Move lastMove = game.getLastMove();
+            if (lastPv.length > 2 && lastMove != null && lastMove.toCode() == lastPv[1]) {
+                // The opponent replied as expected, so the rest of the expected line still applies.
+                explorer.setExpectedLine(Arrays.copyOfRange(lastPv, 2, lastPv.length));
+            }
+            result = explorer.getNextBestNodes(lines);
+        }
+        lineCount = lines;
+        lastPv = result.isEmpty() ? new int[0] : result.get(0).pv;
+        return result;
+    }
+
+    // Returns the stricter of the given node limit and that of the bot's strength.
+    private long nodeLimit(long nodeLimit) {
+        if (nodeLimit == 0 || strength.getNodeLimit() == 0) {
+            return Math.max(nodeLimit, strength.getNodeLimit());
+        }
+        return Math.min(nodeLimit, strength.getNodeLimit());
+    }
+
+    // Set the depth to search the given state to. Unless it is set or the search is limited by
+    // nodes, search deeper when there are few pieces left.
+    private void setDepth(ChessGame state) {
+        if (maxDepth > 0) {
+            explorer.setMaxDepth(maxDepth);
+        } else if (strength.getNodeLimit() > 0) {
+            explorer.setMaxDepth(BUDGET_MAX_DEPTH);
+        } else if (state.totalPiecesLeft() < 8) {
+            explorer.setMaxDepth(6);
+        } else if (state.totalPiecesLeft() < 12) {
+            explorer.setMaxDepth(5);
+        } else {
+            explorer.setMaxDepth(DEFAULT_DEPTH);
+        }
+    }
+
+    // Returns the move of the best search result, throwing if the search found no move.
+    private static Move bestMove(List<MinimaxTreeExplorer<ChessGame>.NodeValue> nextStates) {
+        if (nextStates.isEmpty()) {
+            throw new IllegalStateException("The bot has no legal move.");
+        }
+        return nextStates.get(0).node.getLastMove();
+    }
+
+    // Convert search results to moves with their utility for the bot's team.
+    private List<MoveUtility> toMoveUtilities(List<MinimaxTreeExplorer<ChessGame>.NodeValue> nextStates) {
         List<MoveUtility> nextMoves = new ArrayList<>(3);
         for (MinimaxTreeExplorer<ChessGame>.NodeValue nv : nextStates) {
-            // If we find a null node then there are less than three moves the bot can make.
-            if (nv.node != null) {
-                nextMoves.add(new MoveUtility(nv.node.getLastMove(), nv.value));
+            List<Move> line = new ArrayList<>(nv.pv.length);
+            for (int code : nv.pv) {
+                line.add(Move.fromCode(code));
             }
+            nextMoves.add(new MoveUtility(nv.node.getLastMove(), Scores.toPawns(nv.value), line,
+                    explorer.getDepthReached(), explorer.getNodeCount(), explorer.getSearchMillis()));
         }
         return nextMoves;
     }
 
     /**
-     * Class representing a move and the utility such a move may provide for a team in chess.
+     * Class representing a move and the utility such a move may provide for a team in chess,
+     * along with the line of play the bot expects to follow it and statistics of the search
+     * that found it.
      */
     public class MoveUtility {
         public Move move;
         public double utility;
+        public List<Move> line;
+        public int depth;
+        public long nodes;
+        public long millis;
 
         public MoveUtility(Move move, double utility) {
+            this(move, utility, List.of(move), 0, 0, 0);
+        }
+
+        public MoveUtility(Move move, double utility, List<Move> line, int depth, long nodes, long millis) {
             this.move = move;
             this.utility = utility;
+            this.line = line;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.millis = millis;
         }
     }
-}
\ No newline at end of file
+}
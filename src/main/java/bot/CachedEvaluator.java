@@ -0,0 +1,118 @@
+package bot;
+
+import functionality.ChessGame;
+import functionality.TeamColor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class that caches the scores returned by another chess evaluator, keyed by the hash of the
+ * position, so that a position reached repeatedly during a search is only evaluated once.
+ *
+ * The cache is a fixed-size table that never blocks: each slot holds the position key XOR-ed with
+ * the packed score and the packed score itself, so a slot torn by concurrent writers is detected
+ * and treated as a miss. Finished games are passed straight to the underlying evaluator since their
+ * score depends on the ply they are reached at.
+ */
+public class CachedEvaluator implements ScoreEvaluator<ChessGame> {
+    private static final int DEFAULT_SIZE_BITS = 16;
+    // Mixed into the key of scores computed for black so both teams can share a slot index.
+    private static final long BLACK_KEY = 0x9E3779B97F4A7C15L;
+    // Marks a slot as filled, so that a score of 0 is not confused with an empty slot.
+    private static final long FILLED = 1L << 32;
+
+    private final ScoreEvaluator<ChessGame> eval;
+    // Package-private so that tests can tear a slot.
+    final long[] keys;
+    final long[] scores;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create a cache with the default number of slots in front of the given evaluator.
+     * @param eval evaluator to cache the scores of
+     */
+    public CachedEvaluator(ScoreEvaluator<ChessGame> eval) {
+        this(eval, DEFAULT_SIZE_BITS);
+    }
+
+    /**
+     * Create a cache with 2^sizeBits slots in front of the given evaluator.
+     * @param eval evaluator to cache the scores of
+     * @param sizeBits log2 of the number of slots
+     */
+    public CachedEvaluator(ScoreEvaluator<ChessGame> eval, int sizeBits) {
+        this.eval = eval;
+        this.keys = new long[1 << sizeBits];
+        this.scores = new long[1 << sizeBits];
+        this.mask = (1 << sizeBits) - 1;
+    }
+
+    /**
+     * Returns the score of a given chess state for a specified team, computing it with the
+     * underlying evaluator only if it is not already cached.
+     *
+     * @param state current game state
+     * @param team team to determine the score for
+     * @param ply distance of the state from the root of the search
+     * @return the score given by the underlying evaluator
+     */
+    @Override
+    public int score(ChessGame state, TeamColor team, int ply) {
+        if (state.isGameOver()) {
+            return eval.score(state, team, ply);
+        }
+        long key = team == TeamColor.BLACK ? state.getKey() ^ BLACK_KEY : state.getKey();
+        int idx = (int) key & mask;
+        long packed = scores[idx];
+        if ((keys[idx] ^ packed) == key && packed != 0L) {
+            hits.increment();
+            return (int) packed;
+        }
+
+        misses.increment();
+        int score = eval.score(state, team, ply);
+        packed = FILLED | (score & 0xFFFFFFFFL);
+        scores[idx] = packed;
+        keys[idx] = key ^ packed;
+        return score;
+    }
+
+    /**
+     * Returns the number of scores served from the cache.
+     * @return number of cache hits
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of scores that had to be computed by the underlying evaluator.
+     * @return number of cache misses
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the fraction of lookups that were served from the cache.
+     * @return hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long total = getHits() + getMisses();
+        return total == 0 ? 0.0 : (double) getHits() / total;
+    }
+
+    /**
+     * Remove all cached scores and reset the hit and miss counters.
+     */
+    public void clear() {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 0L;
+            scores[i] = 0L;
+        }
+        hits.reset();
+        misses.reset();
+    }
+}
@@ -1,15 +1,24 @@
 package bot;
 
+import functionality.BoardCoordinate;
 import functionality.ChessGame;
+import functionality.ChessPiece;
 import functionality.Move;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * Class responsible for interacting with the ChessGame class and using its public methods to synthesize
  * information.
  */
 public class ChessDelegate implements MoveEnumerator<ChessGame> {
+    private static final char[] PROMOTION_PIECES = {'q', 'r', 'b', 'n'};
 
     /**
      * Returns a set of all possible states of the game after one move by the given team.
@@ -21,21 +30,247 @@ public class ChessDelegate implements MoveEnumerator<ChessGame> {
     public List<ChessGame> nextStates(ChessGame state) {
         List<ChessGame> states = new LinkedList<>();
         for (Move move : state.getPossibleMoves()) {
-            ChessGame newGame = state.copy();
-            ChessGame.MoveOutcome outcome = newGame.attemptMove(move.getFirst(), move.getSecond());
-            if (outcome == ChessGame.MoveOutcome.PAWN_PROMOTION) {
-                char[] pieces = {'q', 'r', 'b', 'n'};
-                for (char p : pieces) {
+            addNextStates(state, move, states, new int[0]);
+        }
+        return states;
+    }
+
+    /**
+     * Returns an iterator that lazily generates the next states of the game in stages: first the
+     * hash move, then captures and promotions (most valuable victim, least valuable attacker first), then the
+     * killer moves for this ply and finally the remaining quiet moves ordered by history score.
+     * The moves of a stage are only generated once the iterator reaches that stage.
+     *
+     * @param state current game
+     * @param ply distance of the state from the root of the search
+     * @param hashMove code of the move to try first, or 0 for none
+     * @param heuristics killer moves and history scores gathered by the search
+     * @throws RuntimeException if any of the possible moves provided by the game cannot be executed
+     * @return iterator over all possible next states of the game
+     */
+    @Override
+    public Iterator<ChessGame> stateIterator(ChessGame state, int ply, int hashMove, SearchHeuristics heuristics) {
+        return new StagedStateIterator(state, ply, hashMove, heuristics);
+    }
+
+    @Override
+    public int moveCode(ChessGame state) {
+        Move lastMove = state.getLastMove();
+        return lastMove == null ? 0 : lastMove.toCode();
+    }
+
+    @Override
+    public boolean isQuiet(ChessGame state) {
+        Move lastMove = state.getLastMove();
+        return !state.isLastMoveCapture() && (lastMove == null || lastMove.getPawnPromotion() == 0);
+    }
+
+    @Override
+    public long key(ChessGame state) {
+        return state.getKey();
+    }
+
+    @Override
+    public boolean isInCheck(ChessGame state) {
+        return state.isInCheck();
+    }
+
+    /**
+     * Pass the turn unless the team to move is in check, the game is over, or the team has only
+     * pawns left, where being forced to move is often a disadvantage (zugzwang).
+     * @param state game to change
+     * @return true if the null move was made, and false otherwise.
+     */
+    @Override
+    public boolean makeNullMove(ChessGame state) {
+        if (state.isInCheck() || state.isGameOver() || !state.hasNonPawnMaterial(state.currentTurn())) {
+            return false;
+        }
+        state.makeNullMove();
+        return true;
+    }
+
+    @Override
+    public void unmakeNullMove(ChessGame state) {
+        state.unmakeNullMove();
+    }
+
+    // Add the states reached by executing the move to the given collection, expanding pawn promotions
+    // into one state per promotion piece and skipping any state whose move code is in 'excluded'.
+    private static void addNextStates(ChessGame state, Move move, Collection<ChessGame> states,
+                                      int[] excluded) {
+        ChessGame newGame = state.copy();
+        ChessGame.MoveOutcome outcome = newGame.attemptMove(move.getFirst(), move.getSecond());
+        if (outcome == ChessGame.MoveOutcome.PAWN_PROMOTION) {
+            for (char p : PROMOTION_PIECES) {
+                if (!contains(excluded, new Move(move.getFirst(), move.getSecond(), p).toCode())) {
                     ChessGame newNewGame = newGame.copy();
                     newNewGame.promotePawn(p);
                     states.add(newNewGame);
                 }
-            } else if (outcome != ChessGame.MoveOutcome.FAILURE) {
+            }
+        } else if (outcome != ChessGame.MoveOutcome.FAILURE) {
+            if (!contains(excluded, move.toCode())) {
                 states.add(newGame);
-            } else {
+            }
+        } else {
+            throw new RuntimeException("Move failed.");
+        }
+    }
+
+    private static boolean contains(int[] codes, int code) {
+        for (int c : codes) {
+            if (c == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Relative value of a piece used to order captures.
+    private static int pieceValue(ChessPiece p) {
+        if (p == null) {
+            return 1;
+        }
+        switch (p.getShortName()) {
+            case 'n':
+            case 'b':
+                return 3;
+            case 'r':
+                return 5;
+            case 'q':
+                return 9;
+            case 'k':
+                return 100;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * Iterator over the next states of a game that generates moves one stage at a time.
+     */
+    private static class StagedStateIterator implements Iterator<ChessGame> {
+        private final ChessGame state;
+        private final int ply;
+        private final int hashMove;
+        private final SearchHeuristics heuristics;
+        private final Deque<ChessGame> pending = new ArrayDeque<>(4);
+        // Codes of the moves already returned from the hash move and killer stages.
+        private final int[] tried = {0, 0, 0};
+        private Stage stage = Stage.HASH_MOVE;
+        private List<Move> moves;
+        private int moveIdx;
+
+        StagedStateIterator(ChessGame state, int ply, int hashMove, SearchHeuristics heuristics) {
+            this.state = state;
+            this.ply = ply;
+            this.hashMove = hashMove;
+            this.heuristics = heuristics;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (pending.isEmpty() && stage != Stage.DONE) {
+                advance();
+            }
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public ChessGame next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pending.poll();
+        }
+
+        // Generate the states of the next move, moving on to the next stage when this one is exhausted.
+        private void advance() {
+            switch (stage) {
+                case HASH_MOVE:
+                    stage = Stage.CAPTURES;
+                    Move move = Move.fromCode(hashMove);
+                    if (move != null && state.isMoveLegal(move.getFirst(), move.getSecond())) {
+                        tried[0] = hashMove;
+                        addHashMoveState(move);
+                    }
+                    break;
+                case CAPTURES:
+                    if (moves == null) {
+                        moves = state.getPossibleTacticalMoves();
+                        moves.sort(Comparator.comparingInt(this::captureScore).reversed());
+                        moveIdx = 0;
+                    }
+                    if (moveIdx < moves.size()) {
+                        addNextStates(state, moves.get(moveIdx++), pending, tried);
+                    } else {
+                        moves = null;
+                        stage = Stage.KILLERS;
+                    }
+                    break;
+                case KILLERS:
+                    stage = Stage.QUIETS;
+                    // Copy the killers since searching the children may replace them.
+                    int[] killers = heuristics == null ? new int[0] : heuristics.killersAt(ply).clone();
+                    for (int i = 0; i < killers.length; i++) {
+                        Move killer = Move.fromCode(killers[i]);
+                        if (killer != null && !contains(tried, killers[i]) &&
+                                state.isMoveLegal(killer.getFirst(), killer.getSecond()) &&
+                                state.isQuietMove(killer.getFirst(), killer.getSecond())) {
+                            tried[i + 1] = killers[i];
+                            addNextStates(state, killer, pending, new int[0]);
+                        }
+                    }
+                    break;
+                case QUIETS:
+                    if (moves == null) {
+                        moves = state.getPossibleQuietMoves();
+                        if (heuristics != null) {
+                            moves.sort(Comparator.comparingInt((Move m) -> heuristics.historyScore(m.toCode()))
+                                    .reversed());
+                        }
+                        moveIdx = 0;
+                    }
+                    if (moveIdx < moves.size()) {
+                        addNextStates(state, moves.get(moveIdx++), pending, tried);
+                    } else {
+                        moves = null;
+                        stage = Stage.DONE;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        // Add the state reached by the hash move, promoting to the piece stored in the move.
+        private void addHashMoveState(Move move) {
+            ChessGame newGame = state.copy();
+            ChessGame.MoveOutcome outcome = newGame.attemptMove(move.getFirst(), move.getSecond());
+            if (outcome == ChessGame.MoveOutcome.PAWN_PROMOTION) {
+                char piece = move.getPawnPromotion() == 0 ? 'q' : move.getPawnPromotion();
+                tried[0] = new Move(move.getFirst(), move.getSecond(), piece).toCode();
+                newGame.promotePawn(piece);
+            } else if (outcome == ChessGame.MoveOutcome.FAILURE) {
                 throw new RuntimeException("Move failed.");
             }
+            pending.add(newGame);
         }
-        return states;
+
+        // Most valuable victim, least valuable attacker score of a capture. Promotions without a
+        // capture are scored as capturing a pawn.
+        private int captureScore(Move m) {
+            BoardCoordinate src = m.getFirst();
+            BoardCoordinate dest = m.getSecond();
+            return 10 * pieceValue(state.getPieceAt(dest)) - pieceValue(state.getPieceAt(src));
+        }
+    }
+
+    /**
+     * Stages of move generation, in the order they are visited.
+     */
+    private enum Stage {
+        HASH_MOVE, CAPTURES, KILLERS, QUIETS, DONE
     }
 }
@@ -3,38 +3,154 @@ package bot;
 import functionality.TeamColor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 /**
  * Class that explores a minimax tree for a given game and is able to return the "best" move
- * based on a provided utility function.
+ * based on a provided score function.
+ *
+ * The tree is searched in negamax form with principal variation search: the first move of every
+ * node is searched with the full alpha-beta window, and the remaining moves with a null window
+ * that only proves they are no better, re-searching with the full window when one is.
+ *
+ * Outside of the principal variation, a node whose score already looks good enough to cause a cutoff
+ * is first searched to a reduced depth after passing the turn (null-move pruning). If the position
+ * is still good enough without moving, the node is pruned. Quiet moves late in the move order are
+ * searched to a reduced depth first (late move reductions), and only searched fully if they turn
+ * out to be better than expected. Near the leaves, nodes whose static score is far above beta are
+ * pruned (reverse futility pruning), and quiet moves are skipped in nodes whose static score is
+ * far below alpha (futility pruning). The futility margins assume scores in centipawns, so these
+ * two are disabled by default.
+ *
+ * With iterative deepening enabled, the root is searched to increasing depths, each iteration
+ * trying the previous best move first. Each iteration can start from a narrow aspiration window
+ * around the previous score, which is widened and re-searched when the score falls outside of it.
+ *
+ * The principal variation (the line of best moves for both sides) of every searched root move is
+ * collected in a triangular table, and is tried first when that move is searched to the next depth.
+ *
+ * To make a weaker player, random noise can be added to the scores of the states after one move
+ * from the root. The noise of a state stays the same for the whole search, and is not applied
+ * below the root, so the scores stored in the transposition table are not affected.
+ *
+ * The transposition table and move ordering heuristics are kept from one search to the next, and
+ * aged rather than cleared, so that a search of a position reached from the previous root starts
+ * from what was learned there.
+ *
+ * A search can be stopped from another thread, or limited by a deadline or a number of nodes, in
+ * which case it returns the results of the deepest depth it completed.
+ *
+ * With an analysis cache, a search for the single best move without noise first looks up the root
+ * in the cache, and returns the cached result without searching if it is at least as deep as the
+ * search would go. The results of such searches are stored in the cache.
  * @param <T> game to be explored
  */
 public class MinimaxTreeExplorer<T> {
+    private static final int MAX_PLY = 128;
+    private static final int NULL_MOVE_MIN_DEPTH = 3;
+    private static final int NULL_MOVE_REDUCTION = 2;
+    private static final int LMR_MIN_DEPTH = 3;
+    private static final int LMR_MIN_MOVES = 3;
+    // Depth reductions of late moves, by remaining depth and move number.
+    private static final int[][] LMR_REDUCTIONS = new int[64][64];
+    private static final int REVERSE_FUTILITY_MAX_DEPTH = 3;
+    private static final int REVERSE_FUTILITY_MARGIN = 120;
+    // Futility margins by remaining depth.
+    private static final int[] FUTILITY_MARGINS = {0, 150, 300};
+    private static final int ASPIRATION_MIN_DEPTH = 3;
+    private static final int ASPIRATION_DELTA = 100;
+    // The clock is only read every this many nodes plus one, to keep the deadline check cheap.
+    private static final int CLOCK_CHECK_MASK = 1023;
+
+    static {
+        for (int depth = 1; depth < 64; depth++) {
+            for (int move = 1; move < 64; move++) {
+                LMR_REDUCTIONS[depth][move] = (int) (0.75 + Math.log(depth) * Math.log(move) / 2.25);
+            }
+        }
+    }
+
     private int maxDepth;
-    private UtilityEvaluator<T> utilityEval;
+    private ScoreEvaluator<T> scoreEval;
     private MoveEnumerator<T> mEnum;
     private TeamColor team;
     private T root;
+    private TranspositionTable table = new TranspositionTable();
+    private AnalysisCache analysisCache;
+    private boolean tableAging = true;
+    private SearchHeuristics heuristics = new SearchHeuristics();
+    private long nodes;
+    private boolean nullMovePruning = true;
+    private boolean lateMoveReductions = true;
+    private boolean futilityPruning = false;
+    private boolean reverseFutilityPruning = false;
+    private boolean iterativeDeepening = false;
+    private boolean aspirationWindows = false;
+    private int aspirationFailLows;
+    private int aspirationFailHighs;
+    private int depthReached;
+    private long startTime;
+    private long searchMillis;
+    // Triangular table holding the best line found from each ply, with pvLength[ply] the ply its
+    // line ends at.
+    private final int[][] pvTable = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    // Principal variations of the lines searched at the root, and the one being followed.
+    private int[][] linePvs = new int[0][];
+    private int[] previousPv = new int[0];
+    private boolean followPv;
+    // Line given by 'setExpectedLine' to try first in the next search.
+    private int[] expectedLine = new int[0];
+    private int rootNoise;
+    private Random random;
+    private final Map<T, Integer> rootNoises = new IdentityHashMap<>();
+    private volatile boolean stopRequested;
+    private boolean stopped;
+    private SearchListener listener;
+    private volatile long deadline;
+    private volatile long nodeLimit;
 
     /**
      * Create a new minimax tree explorer.
      *
-     * @param eval utility function for this game
+     * @param eval score function for this game
      * @param mEnum object that gives the next possible states in this game given the current state
      * @param team team in the game that this explorer is helping
      * @param root main game object
      * @param maxDepth farthest moves ahead that explorer will look
      */
-    public MinimaxTreeExplorer(UtilityEvaluator<T> eval, MoveEnumerator<T> mEnum, TeamColor team,
+    public MinimaxTreeExplorer(ScoreEvaluator<T> eval, MoveEnumerator<T> mEnum, TeamColor team,
                                T root, int maxDepth) {
-        this.utilityEval = eval;
+        this.scoreEval = eval;
         this.mEnum = mEnum;
         this.team = team;
         this.root = root;
         this.maxDepth = maxDepth;
     }
 
+    /**
+     * Set the state that the next search starts from.
+     * @param root main game object
+     */
+    public void setRoot(T root) {
+        this.root = root;
+    }
+
+    /**
+     * Set the team the explorer is helping, which must be the team to move at the root of the
+     * next search.
+     * @param team team to find moves for
+     */
+    public void setTeam(TeamColor team) {
+        this.team = team;
+    }
+
     /**
      * Set the max number of moves the explorer will look ahead.
      * @param maxDepth max number of moves
@@ -43,111 +159,647 @@ public class MinimaxTreeExplorer<T> {
         this.maxDepth = maxDepth;
     }
 
+    /**
+     * Set whether the explorer prunes nodes using null moves. Enabled by default.
+     * @param nullMovePruning true to enable null-move pruning, and false to disable it
+     */
+    public void setNullMovePruning(boolean nullMovePruning) {
+        this.nullMovePruning = nullMovePruning;
+    }
+
+    /**
+     * Set whether the explorer searches late quiet moves to a reduced depth first. Enabled by
+     * default.
+     * @param lateMoveReductions true to enable late move reductions, and false to disable them
+     */
+    public void setLateMoveReductions(boolean lateMoveReductions) {
+        this.lateMoveReductions = lateMoveReductions;
+    }
+
+    /**
+     * Set whether the explorer skips quiet moves near the leaves in nodes whose static score is
+     * far below alpha. Disabled by default, since the margins assume scores in centipawns.
+     * @param futilityPruning true to enable futility pruning, and false to disable it
+     */
+    public void setFutilityPruning(boolean futilityPruning) {
+        this.futilityPruning = futilityPruning;
+    }
+
+    /**
+     * Set whether the explorer prunes nodes near the leaves whose static score is far above beta.
+     * Disabled by default, since the margins assume scores in centipawns.
+     * @param reverseFutilityPruning true to enable reverse futility pruning, and false to disable it
+     */
+    public void setReverseFutilityPruning(boolean reverseFutilityPruning) {
+        this.reverseFutilityPruning = reverseFutilityPruning;
+    }
+
+    /**
+     * Set whether 'getNextBestNode' searches to increasing depths up to the max depth, ordering
+     * the moves at the root by the results of the previous depth. Disabled by default, since it
+     * only pays off when the move enumerator provides keys for the transposition table.
+     * @param iterativeDeepening true to enable iterative deepening, and false to disable it
+     */
+    public void setIterativeDeepening(boolean iterativeDeepening) {
+        this.iterativeDeepening = iterativeDeepening;
+    }
+
+    /**
+     * Set whether iterative deepening searches each depth with a narrow window around the score
+     * of the previous depth, widening it when the score falls outside. Disabled by default.
+     * @param aspirationWindows true to enable aspiration windows, and false to disable them
+     */
+    public void setAspirationWindows(boolean aspirationWindows) {
+        this.aspirationWindows = aspirationWindows;
+    }
+
+    /**
+     * Set the line of play that the next search tries first, such as what is left of the
+     * principal variation of the previous search once its first moves have been played.
+     * @param line move codes of the expected line, starting with a move from the next root
+     */
+    public void setExpectedLine(int[] line) {
+        this.expectedLine = line.clone();
+    }
+
+    /**
+     * Set the largest random noise added to the scores of the states after one move from the
+     * root. Disabled by default.
+     * @param rootNoise largest noise, or 0 for none
+     * @param random source of the noise
+     */
+    public void setRootNoise(int rootNoise, Random random) {
+        this.rootNoise = rootNoise;
+        this.random = random;
+    }
+
+    /**
+     * Set the transposition table used by the explorer's searches, which may be shared with the
+     * explorers searching on other threads so that they can use each other's results.
+     * @param table transposition table
+     */
+    public void setTranspositionTable(TranspositionTable table) {
+        this.table = table;
+    }
+
+    /**
+     * Set whether each search marks the entries of the transposition table stored by earlier
+     * searches as old. Enabled by default. Disable it for a table shared with explorers searching
+     * at the same time, whose owner then ages the table with TranspositionTable.newSearch.
+     * @param tableAging whether searches age the transposition table
+     */
+    public void setTableAging(boolean tableAging) {
+        this.tableAging = tableAging;
+    }
+
+    /**
+     * Set the cache of root search results consulted before searching and updated after, or null
+     * for none. The scores in the cache must come from the same score function.
+     * @param analysisCache analysis cache
+     */
+    public void setAnalysisCache(AnalysisCache analysisCache) {
+        this.analysisCache = analysisCache;
+    }
+
+    /**
+     * Forget everything learned by earlier searches.
+     */
+    public void clearTables() {
+        table.clear();
+        heuristics.clear();
+    }
+
+    /**
+     * Set the time at which searches stop, including one that is already running.
+     * @param deadline value of System.nanoTime() to stop at, or 0 for no deadline
+     */
+    public void setDeadline(long deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * Set the number of nodes after which searches stop, including one that is already running.
+     * @param nodeLimit max number of nodes to visit, or 0 for no limit
+     */
+    public void setNodeLimit(long nodeLimit) {
+        this.nodeLimit = nodeLimit;
+    }
+
+    /**
+     * Set the listener told about every line completed by a search.
+     * @param listener search listener, or null for none
+     */
+    public void setSearchListener(SearchListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Stop the current search, which then returns the results of the deepest depth it completed.
+     * May be called from any thread. Searches started afterwards also stop right away, until
+     * 'clearStop' is called.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Allow searches to run again after 'stop' has been called.
+     */
+    public void clearStop() {
+        stopRequested = false;
+    }
+
+    /**
+     * Returns true iff the last search was stopped, or ran out of nodes or time, before reaching
+     * the max depth.
+     * @return whether the last search was stopped
+     */
+    public boolean isStopped() {
+        return stopped;
+    }
+
+    /**
+     * Returns the number of nodes visited by the last search.
+     * @return node count
+     */
+    public long getNodeCount() {
+        return nodes;
+    }
+
+    /**
+     * Returns the deepest depth the last search completed.
+     * @return depth reached
+     */
+    public int getDepthReached() {
+        return depthReached;
+    }
+
+    /**
+     * Returns the time the last search took.
+     * @return search time in milliseconds
+     */
+    public long getSearchMillis() {
+        return searchMillis;
+    }
+
+    /**
+     * Returns the principal variation of the best move found by the last search: the move codes
+     * (as given by the move enumerator) of the best move and the best replies for both sides.
+     * @return move codes of the expected line, starting with the best move
+     */
+    public int[] getPrincipalVariation() {
+        return linePvs.length == 0 ? new int[0] : linePvs[0].clone();
+    }
+
+    /**
+     * Returns the number of times the last search had to be repeated with a wider window because
+     * the score fell below the aspiration window.
+     * @return number of fail-low re-searches
+     */
+    public int getAspirationFailLows() {
+        return aspirationFailLows;
+    }
+
+    /**
+     * Returns the number of times the last search had to be repeated with a wider window because
+     * the score rose above the aspiration window.
+     * @return number of fail-high re-searches
+     */
+    public int getAspirationFailHighs() {
+        return aspirationFailHighs;
+    }
+
     /**
      * Get up to the next 3 best moves given the current state of the game.
-     * @return list of next best game nodes-value pairs
+     * @return list of next best game nodes-value pairs, best first
      */
     public List<NodeValue> getNextBestNodes() {
-        List<T> nextStates = mEnum.nextStates(root);
-        List<NodeValue> bestNodes = new ArrayList<>(3);
-        bestNodes.add(new NodeValue(null, Double.NEGATIVE_INFINITY));
-        bestNodes.add(new NodeValue(null, Double.NEGATIVE_INFINITY));
-        bestNodes.add(new NodeValue(null, Double.NEGATIVE_INFINITY));
-        double maxValue = Double.NEGATIVE_INFINITY;
+        return getNextBestNodes(3);
+    }
 
-        for (T nextState : nextStates) {
-            double v = minValue(nextState, maxValue, Double.POSITIVE_INFINITY, 1);
-            if (v > bestNodes.get(2).value) {
-                bestNodes.remove(2);
-                bestNodes.add(new NodeValue(nextState, v));
-                bestNodes.sort((nv1, nv2) -> Double.compare(nv2.value, nv1.value));
-                maxValue = bestNodes.get(0).value;
+    /**
+     * Get up to the given number of next best moves given the current state of the game, each
+     * with its exact score. The best move is found first, then the best of the remaining moves,
+     * and so on, with later searches reusing the transposition table of earlier ones.
+     * @param count number of moves to find
+     * @return list of next best game node-value pairs, best first
+     */
+    public List<NodeValue> getNextBestNodes(int count) {
+        List<T> nextStates = startSearch();
+        int lines = Math.min(count, nextStates.size());
+        boolean cached = analysisCache != null && lines == 1 && rootNoise == 0;
+        if (cached) {
+            NodeValue cachedNode = cachedNode(nextStates);
+            if (cachedNode != null) {
+                return Collections.singletonList(cachedNode);
             }
         }
-
+        int[] scores = searchLines(nextStates, lines);
+        List<NodeValue> bestNodes = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            bestNodes.add(new NodeValue(nextStates.get(i), scores[i], linePvs[i].clone()));
+        }
+        if (cached && depthReached > 0 && linePvs[0].length > 0) {
+            analysisCache.put(mEnum.key(root), depthReached, scores[0], linePvs[0]);
+        }
         return bestNodes;
     }
 
+    // Returns the result of the root from the analysis cache if it was searched at least to the
+    // maximum depth and its best move is one of the given states, or null.
+    private NodeValue cachedNode(List<T> nextStates) {
+        AnalysisCache.Entry entry = analysisCache.get(mEnum.key(root), maxDepth);
+        if (entry == null) {
+            return null;
+        }
+        for (T nextState : nextStates) {
+            if (mEnum.moveCode(nextState) == entry.getBestMove()) {
+                depthReached = entry.getDepth();
+                linePvs = new int[][] {entry.getPv()};
+                expectedLine = new int[0];
+                searchMillis = (System.nanoTime() - startTime) / 1000000;
+                return new NodeValue(nextState, entry.getScore(), entry.getPv());
+            }
+        }
+        return null;
+    }
+
     /**
-     * Get the next best node in the game given the current state of the game.
-     * @return next best node
+     * Get the next best node in the game given the current state of the game. Searches, and uses
+     * the analysis cache, like 'getNextBestNodes(1)'.
+     * @return next best node, or null if there is no move
      */
     public T getNextBestNode() {
-        List<T> nextStates = mEnum.nextStates(root);
-        double maxValue = Double.NEGATIVE_INFINITY;
-        T maxNextState = null;
+        List<NodeValue> bestNodes = getNextBestNodes(1);
+        return bestNodes.isEmpty() ? null : bestNodes.get(0).node;
+    }
 
-        for (T nextState : nextStates) {
-            double v = minValue(nextState, maxValue, Double.POSITIVE_INFINITY, 1);
-            if (v > maxValue) {
-                maxValue = v;
-                maxNextState = nextState;
+    // Find the given number of best states after one move from the root, moving them to the front
+    // of the list in order, and return their scores. With iterative deepening, every line is
+    // searched again at each depth. A search stopped after completing a depth returns the states,
+    // scores and principal variations of the lines as they were at the end of that depth, since
+    // searching a line reorders the states after it. A search stopped before completing any depth
+    // keeps the lines it completed, the others keeping their state with a score of 0 and an empty
+    // principal variation.
+    private int[] searchLines(List<T> nextStates, int lines) {
+        int[] scores = new int[lines];
+        linePvs = new int[lines][0];
+        if (lines > 0) {
+            linePvs[0] = expectedLine;
+        }
+        expectedLine = new int[0];
+        int firstDepth = iterativeDeepening ? 1 : maxDepth;
+        List<T> completedStates = null;
+        int[] completedScores = null;
+        int[][] completedPvs = null;
+        try {
+            for (int depth = firstDepth; depth <= maxDepth; depth++) {
+                for (int i = 0; i < lines; i++) {
+                    if (depth == firstDepth) {
+                        scores[i] = searchRoot(nextStates, i, depth, -Scores.INFINITY, Scores.INFINITY);
+                    } else {
+                        scores[i] = aspirationSearch(nextStates, i, depth, scores[i]);
+                    }
+                    if (listener != null) {
+                        listener.lineCompleted(depth, i, scores[i], nodes,
+                                (System.nanoTime() - startTime) / 1000000, linePvs[i].clone());
+                    }
+                }
+                depthReached = depth;
+                if (lines > 1 && depth < maxDepth) {
+                    completedStates = new ArrayList<>(nextStates);
+                    completedScores = scores.clone();
+                    completedPvs = linePvs.clone();
+                }
+            }
+        } catch (SearchStoppedException e) {
+            stopped = true;
+            followPv = false;
+            if (completedStates != null) {
+                nextStates.clear();
+                nextStates.addAll(completedStates);
+                scores = completedScores;
+                linePvs = completedPvs;
             }
         }
-        return maxNextState;
+        searchMillis = (System.nanoTime() - startTime) / 1000000;
+        return scores;
     }
 
-    // Max node in the minimax tree.
-    private double maxValue(T state, double alpha, double beta, int depth) {
-        if (depth >= maxDepth) {
-            return utilityEval.utility(state, team, depth);
+    // Search the root to the given depth, starting with a window around the score of the previous
+    // depth if aspiration windows are enabled. The window is widened on the side the score fell
+    // out of, by a margin that doubles on every re-search.
+    private int aspirationSearch(List<T> nextStates, int first, int depth, int previousScore) {
+        if (!aspirationWindows || depth < ASPIRATION_MIN_DEPTH || Scores.isMate(previousScore)) {
+            return searchRoot(nextStates, first, depth, -Scores.INFINITY, Scores.INFINITY);
         }
-        List<T> nextStates = mEnum.nextStates(state);
-        if (nextStates.size() == 0) {
-            return utilityEval.utility(state, team, depth);
+        int delta = ASPIRATION_DELTA;
+        int alpha = Math.max(-Scores.INFINITY, previousScore - delta);
+        int beta = Math.min(Scores.INFINITY, previousScore + delta);
+        while (true) {
+            int v = searchRoot(nextStates, first, depth, alpha, beta);
+            delta *= 2;
+            if (v <= alpha && alpha > -Scores.INFINITY) {
+                aspirationFailLows++;
+                alpha = Math.max(-Scores.INFINITY, v - delta);
+            } else if (v >= beta && beta < Scores.INFINITY) {
+                aspirationFailHighs++;
+                beta = Math.min(Scores.INFINITY, v + delta);
+            } else {
+                return v;
+            }
         }
-        double v = Double.NEGATIVE_INFINITY;
+    }
 
-        for (T nextState : nextStates) {
-            double vPrime = minValue(nextState, alpha, beta, depth + 1);
-            v = Math.max(v, vPrime);
+    // Search the root states from index 'first' on to the given depth and move the best one to
+    // index 'first', unless no state scored above alpha. Returns the best score.
+    private int searchRoot(List<T> nextStates, int first, int depth, int alpha, int beta) {
+        int alphaOrig = alpha;
+        int best = -Scores.INFINITY;
+        int bestIndex = first;
+        previousPv = linePvs[first];
 
-            // (alpha-beta) Prune.
-            if (vPrime > beta) {
-                return v;
+        for (int i = first; i < nextStates.size(); i++) {
+            T nextState = nextStates.get(i);
+            followPv = i == first && previousPv.length > 0 && mEnum.moveCode(nextState) == previousPv[0];
+            // The window is shifted so that the noisy score is compared to alpha and beta.
+            int noise = rootNoises.getOrDefault(nextState, 0);
+            int v = searchChild(nextState, depth, alpha - noise, beta - noise, 0, i == first, 0) + noise;
+            followPv = false;
+            if (v > best) {
+                best = v;
+                bestIndex = i;
             }
+            if (v > alpha) {
+                updatePv(0, mEnum.moveCode(nextState));
+            }
+            if (v >= beta) {
+                break;
+            }
+            alpha = Math.max(alpha, v);
+        }
+        if (best > alphaOrig) {
+            nextStates.add(first, nextStates.remove(bestIndex));
+            linePvs[first] = Arrays.copyOf(pvTable[0], pvLength[0]);
+        }
+        return best;
+    }
 
-            alpha = Math.max(alpha, vPrime);
+    // Age the tables of the previous search and return the states after one move from the root,
+    // starting with the expected or hash move.
+    private List<T> startSearch() {
+        stopped = false;
+        if (tableAging) {
+            table.newSearch();
+        }
+        heuristics.age();
+        nodes = 1;
+        depthReached = 0;
+        startTime = System.nanoTime();
+        aspirationFailLows = 0;
+        aspirationFailHighs = 0;
+        List<T> nextStates = new ArrayList<>();
+        int rootMove = expectedLine.length > 0 ? expectedLine[0] : table.probeMove(mEnum.key(root));
+        mEnum.stateIterator(root, 0, rootMove, heuristics).forEachRemaining(nextStates::add);
+        rootNoises.clear();
+        if (rootNoise > 0) {
+            for (T nextState : nextStates) {
+                rootNoises.put(nextState, random.nextInt(2 * rootNoise + 1) - rootNoise);
+            }
+        }
+        return nextStates;
+    }
+
+    // Search a child of a node at the given ply and return its score for the side to move at the
+    // node. All but the first child are scouted with a null window and only re-searched with the
+    // full window if they turn out to be better than alpha. Scores of leaves do not depend on the
+    // window, so those are never re-searched. A child with a reduction is first scouted to the
+    // reduced depth, and only searched to the full depth if it beats alpha there.
+    private int searchChild(T child, int depth, int alpha, int beta, int ply, boolean first, int reduction) {
+        if (first) {
+            return -search(child, depth - 1, -beta, -alpha, ply + 1, true);
+        }
+        int v;
+        if (reduction > 0) {
+            v = -search(child, depth - 1 - reduction, -alpha - 1, -alpha, ply + 1, true);
+            if (v <= alpha) {
+                return v;
+            }
+        }
+        v = -search(child, depth - 1, -alpha - 1, -alpha, ply + 1, true);
+        if (v > alpha && v < beta && depth > 1) {
+            v = -search(child, depth - 1, -beta, -alpha, ply + 1, true);
         }
         return v;
     }
 
-    // Min node in the minimax tree.
-    private double minValue(T state, double alpha, double beta, int depth) {
-        if (depth >= maxDepth) {
-            return utilityEval.utility(state, team, depth);
+    // Negamax search of a node with the given remaining depth, returning its score for the side to
+    // move. 'allowNull' is false directly after a null move, so that two are never made in a row.
+    private int search(T state, int depth, int alpha, int beta, int ply, boolean allowNull) {
+        if (stopRequested || isOverBudget()) {
+            throw SearchStoppedException.INSTANCE;
+        }
+        nodes++;
+        pvLength[ply] = ply;
+        // Whether this node is on the principal variation of the previous depth.
+        boolean onPv = followPv && ply < previousPv.length;
+        followPv = false;
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return evaluate(state, ply);
+        }
+        boolean pvNode = beta - alpha > 1;
+        long key = mEnum.key(state);
+        long entry = table.probe(key);
+        // Scores are not taken from the table in PV nodes, so that their lines are not cut short.
+        if (!pvNode && isTableCutoff(entry, alpha, beta, depth, ply)) {
+            return Scores.fromTable(TranspositionTable.score(entry), ply);
+        }
+        boolean inCheck = mEnum.isInCheck(state);
+        boolean futile = false;
+        int futilityScore = 0;
+        if (!pvNode && !inCheck && usesStaticScore(depth, allowNull)) {
+            int staticScore = evaluate(state, ply);
+            if (reverseFutilityPruning && depth <= REVERSE_FUTILITY_MAX_DEPTH && !Scores.isMate(beta)
+                    && staticScore - REVERSE_FUTILITY_MARGIN * depth >= beta) {
+                return staticScore - REVERSE_FUTILITY_MARGIN * depth;
+            }
+            if (nullMovePruning && allowNull && depth >= NULL_MOVE_MIN_DEPTH && staticScore >= beta
+                    && isNullMoveCutoff(state, depth, beta, ply)) {
+                return beta;
+            }
+            if (futilityPruning && depth < FUTILITY_MARGINS.length && !Scores.isMate(alpha)) {
+                futilityScore = staticScore + FUTILITY_MARGINS[depth];
+                futile = futilityScore <= alpha;
+            }
         }
-        List<T> nextStates = mEnum.nextStates(state);
-        if (nextStates.size() == 0) {
-            return utilityEval.utility(state, team, depth);
+        int hashMove = onPv ? previousPv[ply] : TranspositionTable.move(entry);
+        Iterator<T> nextStates = mEnum.stateIterator(state, ply, hashMove, heuristics);
+        if (!nextStates.hasNext()) {
+            return evaluate(state, ply);
         }
-        double v = Double.POSITIVE_INFINITY;
+        int alphaOrig = alpha;
+        int v = -Scores.INFINITY;
+        int bestMove = 0;
+        int moveCount = 0;
 
-        for (T nextState : nextStates) {
-            double vPrime = maxValue(nextState, alpha, beta, depth + 1);
-            v = Math.min(v, vPrime);
+        while (nextStates.hasNext()) {
+            T nextState = nextStates.next();
+            moveCount++;
+            boolean quiet = moveCount > 1 && mEnum.isQuiet(nextState) && !mEnum.isInCheck(nextState);
+
+            // Skip quiet moves that cannot raise the score above alpha.
+            if (futile && quiet) {
+                v = Math.max(v, futilityScore);
+                continue;
+            }
+
+            int reduction = 0;
+            if (lateMoveReductions && quiet && !inCheck && depth >= LMR_MIN_DEPTH && moveCount > LMR_MIN_MOVES) {
+                reduction = LMR_REDUCTIONS[Math.min(depth, 63)][Math.min(moveCount, 63)];
+                if (pvNode) {
+                    reduction--;
+                }
+                reduction = Math.max(0, Math.min(reduction, depth - 2));
+            }
+
+            followPv = onPv && moveCount == 1 && mEnum.moveCode(nextState) == previousPv[ply];
+            int vPrime = searchChild(nextState, depth, alpha, beta, ply, moveCount == 1, reduction);
+            followPv = false;
+            if (vPrime > v) {
+                v = vPrime;
+                bestMove = mEnum.moveCode(nextState);
+            }
+            if (vPrime > alpha) {
+                updatePv(ply, mEnum.moveCode(nextState));
+            }
 
             // (alpha-beta) Prune.
-            if (vPrime < alpha) {
-                return v;
+            if (vPrime >= beta) {
+                recordCutoff(nextState, depth, ply);
+                break;
             }
 
-            beta = Math.min(beta, vPrime);
+            alpha = Math.max(alpha, vPrime);
         }
+        storeResult(key, bestMove, v, alphaOrig, beta, depth, ply);
         return v;
     }
 
+    // Returns true iff the search has used up its nodes or time.
+    private boolean isOverBudget() {
+        long limit = nodeLimit;
+        if (limit > 0 && nodes >= limit) {
+            return true;
+        }
+        long end = deadline;
+        return end != 0 && (nodes & CLOCK_CHECK_MASK) == 0 && System.nanoTime() - end >= 0;
+    }
+
+    // Make the given move followed by the line of the next ply the line of this ply.
+    private void updatePv(int ply, int moveCode) {
+        pvTable[ply][ply] = moveCode;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pvTable[ply + 1], ply + 1, pvTable[ply], ply + 1, length - ply - 1);
+        pvLength[ply] = length;
+    }
+
+    // Returns true iff a node with the given remaining depth can be pruned using its static score.
+    private boolean usesStaticScore(int depth, boolean allowNull) {
+        return (reverseFutilityPruning && depth <= REVERSE_FUTILITY_MAX_DEPTH)
+                || (futilityPruning && depth < FUTILITY_MARGINS.length)
+                || (nullMovePruning && allowNull && depth >= NULL_MOVE_MIN_DEPTH);
+    }
+
+    // Returns true iff the side to move still scores at least beta after passing the turn, searched
+    // to a depth reduced by more the deeper the node is. Only tried in null-window searches, where
+    // a cutoff does not lose the principal variation.
+    private boolean isNullMoveCutoff(T state, int depth, int beta, int ply) {
+        if (Scores.isMate(beta) || !mEnum.makeNullMove(state)) {
+            return false;
+        }
+        int reduction = NULL_MOVE_REDUCTION + depth / 6;
+        try {
+            return -search(state, depth - 1 - reduction, -beta, -beta + 1, ply + 1, false) >= beta;
+        } finally {
+            // Also taken back when the search is stopped, since the state may be a root state.
+            mEnum.unmakeNullMove(state);
+        }
+    }
+
+    // Score a state for the side to move at the given ply. The explorer's team moves at the root,
+    // and so at every even ply.
+    private int evaluate(T state, int ply) {
+        int score = scoreEval.score(state, team, ply);
+        return ply % 2 == 0 ? score : -score;
+    }
+
+    // Returns true iff a table entry searched at least as deep as this node has a score that can be
+    // returned without searching the node.
+    private boolean isTableCutoff(long entry, int alpha, int beta, int depth, int ply) {
+        if (entry == 0L || TranspositionTable.depth(entry) < depth) {
+            return false;
+        }
+        int score = Scores.fromTable(TranspositionTable.score(entry), ply);
+        switch (TranspositionTable.bound(entry)) {
+            case TranspositionTable.EXACT:
+                return true;
+            case TranspositionTable.LOWER_BOUND:
+                return score >= beta;
+            case TranspositionTable.UPPER_BOUND:
+                return score <= alpha;
+            default:
+                return false;
+        }
+    }
+
+    // Store the result of searching a node, given the window it was searched with.
+    private void storeResult(long key, int bestMove, int v, int alpha, int beta, int depth, int ply) {
+        int bound;
+        if (v <= alpha) {
+            bound = TranspositionTable.UPPER_BOUND;
+        } else if (v >= beta) {
+            bound = TranspositionTable.LOWER_BOUND;
+        } else {
+            bound = TranspositionTable.EXACT;
+        }
+        table.store(key, bestMove, depth, bound, Scores.toTable(v, ply));
+    }
+
+    // Remember a quiet move that caused a cutoff so that it is tried early in similar positions.
+    private void recordCutoff(T nextState, int depth, int ply) {
+        if (mEnum.isQuiet(nextState)) {
+            heuristics.recordCutoff(mEnum.moveCode(nextState), ply, depth);
+        }
+    }
+
+    // Thrown to unwind a search that has been stopped. Carries no stack trace, since it is not
+    // an error.
+    private static class SearchStoppedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        static final SearchStoppedException INSTANCE = new SearchStoppedException();
+
+        private SearchStoppedException() {
+            super(null, null, false, false);
+        }
+    }
+
     /**
-     * Class representing a node-value pair where the value is the utility of visiting this
-     * node during the game.
+     * Class representing a node-value pair where the value is the score in centipawns of visiting
+     * this node during the game, along with the principal variation expected to follow.
      */
     public class NodeValue {
         public T node;
-        public double value;
+        public int value;
+        public int[] pv;
+
+        public NodeValue(T node, int value) {
+            this(node, value, new int[0]);
+        }
 
-        public NodeValue(T node, double value) {
+        public NodeValue(T node, int value, int[] pv) {
             this.node = node;
             this.value = value;
+            this.pv = pv;
         }
     }
-}
\ No newline at end of file
+}
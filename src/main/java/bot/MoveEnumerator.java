@@ -1,5 +1,6 @@
 package bot;
 
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -15,4 +16,80 @@ public interface MoveEnumerator<T> {
      * @return list of all possible game states after one move
      */
     public List<T> nextStates(T state);
-}
\ No newline at end of file
+
+    /**
+     * Returns an iterator over the game states after one move from the current state.
+     *
+     * Implementations may generate the states lazily and in any order, so that a search which
+     * stops early (e.g. on an alpha-beta cutoff) never pays for the states it did not reach.
+     * The default implementation iterates over 'nextStates'.
+     *
+     * @param state current game state
+     * @param ply distance of the state from the root of the search
+     * @param hashMove code of the move to try first (as given by 'moveCode'), or 0 for none
+     * @param heuristics move ordering information gathered by the search so far
+     * @return iterator over all possible game states after one move
+     */
+    public default Iterator<T> stateIterator(T state, int ply, int hashMove, SearchHeuristics heuristics) {
+        return nextStates(state).iterator();
+    }
+
+    /**
+     * Returns a non-zero code identifying the move that led to the given state, which can later
+     * be passed back to 'stateIterator' as a hash move. The default implementation returns 0,
+     * meaning that moves cannot be identified.
+     * @param state game state produced by this enumerator
+     * @return move code, or 0 if unknown
+     */
+    public default int moveCode(T state) {
+        return 0;
+    }
+
+    /**
+     * Returns whether the move that led to the given state was quiet (e.g. not a capture or a
+     * promotion in chess). Only quiet moves are remembered as killer moves.
+     * @param state game state produced by this enumerator
+     * @return true if the move was quiet, and false otherwise.
+     */
+    public default boolean isQuiet(T state) {
+        return true;
+    }
+
+    /**
+     * Returns a hash of the given state, with equal states having equal keys. The default
+     * implementation returns 0, which disables position-keyed tables in the search.
+     * @param state game state
+     * @return state hash, or 0 if states cannot be hashed
+     */
+    public default long key(T state) {
+        return 0L;
+    }
+
+    /**
+     * Returns whether the side to move in the given state is in check. Moves are never pruned or
+     * reduced in, or when giving, check. The default implementation returns false.
+     * @param state game state
+     * @return true if the side to move is in check, and false otherwise.
+     */
+    public default boolean isInCheck(T state) {
+        return false;
+    }
+
+    /**
+     * Pass the turn in the given state without making a move, if that is safe to do for null-move
+     * pruning (e.g. not when the side to move is in check or could be in zugzwang). A state
+     * changed by this method must be restored with 'unmakeNullMove'. The default implementation
+     * never makes null moves.
+     * @param state game state to change
+     * @return true if the null move was made, and false if the state is unchanged
+     */
+    public default boolean makeNullMove(T state) {
+        return false;
+    }
+
+    /**
+     * Undo a null move made by 'makeNullMove'.
+     * @param state game state to restore
+     */
+    public default void unmakeNullMove(T state) { }
+}
@@ -10,6 +10,9 @@ import java.util.Random;
  * Class representing a relatively naive chess game utility evaluator. Without any information
  * about previous or future moves, this evaluator provides quantitative utility estimates for
  * a state in chess.
+ *
+ * Utilities are in pawns with small random fluctuations added, while scores are in centipawns
+ * without any randomness so that searches using them are reproducible.
  */
 public class NaiveUtilityEvaluator implements UtilityEvaluator<ChessGame> {
     private static final double WIN_UTILITY = 1000000.0;
@@ -24,6 +27,7 @@ public class NaiveUtilityEvaluator implements UtilityEvaluator<ChessGame> {
      * @return a double representing the utility of this chess state for the given team with
      *         a larger number representing a more advantageous situation for the team
      */
+    @Override
     public double utility(ChessGame state, TeamColor team, int depth) {
         if (ChessGame.verifyGameCheckmate(state)) {
             if (team == state.currentTurn()) {
@@ -35,13 +39,7 @@ public class NaiveUtilityEvaluator implements UtilityEvaluator<ChessGame> {
             return -WIN_UTILITY / 2;
         }
 
-        Map<TeamColor, Double> teamStrengths = getTeamStrengths(state);
-        double overallStrength;
-        if (team == TeamColor.BLACK) {
-            overallStrength = teamStrengths.get(TeamColor.BLACK) - teamStrengths.get(TeamColor.WHITE);
-        } else {
-            overallStrength = teamStrengths.get(TeamColor.WHITE) - teamStrengths.get(TeamColor.BLACK);
-        }
+        double overallStrength = getOverallStrength(state, team);
 
         // Add small random fluctuations to avoid repeating moves.
         overallStrength += (RAND.nextInt(10) / 1000.0);
@@ -49,6 +47,35 @@ public class NaiveUtilityEvaluator implements UtilityEvaluator<ChessGame> {
         return overallStrength;
     }
 
+    /**
+     * Returns the score of a given chess state for a specified team in centipawns. Unlike
+     * 'utility', stalemate is scored as a draw and no random fluctuations are added.
+     *
+     * @param state current game state
+     * @param team team to determine the score for
+     * @param ply distance of the state from the root of the search
+     * @return score in centipawns, with mates encoded as described in Scores
+     */
+    @Override
+    public int score(ChessGame state, TeamColor team, int ply) {
+        if (ChessGame.verifyGameCheckmate(state)) {
+            return team == state.currentTurn() ? Scores.matedIn(ply) : Scores.mateIn(ply);
+        } else if (ChessGame.verifyGameStalemate(state)) {
+            return 0;
+        }
+        return (int) Math.round(getOverallStrength(state, team) * 100);
+    }
+
+    // Get the strength of a team's pieces relative to the opponent's pieces.
+    private double getOverallStrength(ChessGame state, TeamColor team) {
+        Map<TeamColor, Double> teamStrengths = getTeamStrengths(state);
+        if (team == TeamColor.BLACK) {
+            return teamStrengths.get(TeamColor.BLACK) - teamStrengths.get(TeamColor.WHITE);
+        } else {
+            return teamStrengths.get(TeamColor.WHITE) - teamStrengths.get(TeamColor.BLACK);
+        }
+    }
+
     // Get the relative strengths of each team's current pieces.
     private Map<TeamColor, Double> getTeamStrengths(ChessGame state) {
         Map<TeamColor, Double> strengthMap = new HashMap<>();
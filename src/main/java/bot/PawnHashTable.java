@@ -0,0 +1,194 @@
+package bot;
+
+import functionality.ChessGame;
+import functionality.TeamColor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Class that evaluates the pawn structure of chess positions (doubled, isolated and passed pawns)
+ * and caches the result by the position's pawn key. Pawn structures change rarely during a search,
+ * so almost every lookup is served from the table.
+ *
+ * Entries are immutable and replaced whole, so the table can be shared between threads without
+ * locking.
+ */
+public class PawnHashTable {
+    private static final int DEFAULT_SIZE_BITS = 14;
+
+    private static final int DOUBLED_MIDGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    // Passed pawn bonuses by the number of rows the pawn has advanced from its starting row.
+    private static final int[] PASSED_MIDGAME = {0, 5, 10, 15, 25, 40, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 55, 80, 110, 0};
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+    // Squares in front of a pawn on the same and adjacent files, for each team and board square.
+    private static final long[] WHITE_FRONT_SPANS = new long[64];
+    private static final long[] BLACK_FRONT_SPANS = new long[64];
+
+    static {
+        for (int c = 0; c < 8; c++) {
+            for (int r = 0; r < 8; r++) {
+                FILES[c] |= 1L << (r * 8 + c);
+            }
+        }
+        for (int c = 0; c < 8; c++) {
+            ADJACENT_FILES[c] = (c > 0 ? FILES[c - 1] : 0L) | (c < 7 ? FILES[c + 1] : 0L);
+        }
+        for (int i = 0; i < 64; i++) {
+            int r = i / 8;
+            int c = i % 8;
+            long span = FILES[c] | ADJACENT_FILES[c];
+            // White pawns advance towards row 0 and black pawns towards row 7.
+            WHITE_FRONT_SPANS[i] = span & ((1L << (r * 8)) - 1);
+            BLACK_FRONT_SPANS[i] = r == 7 ? 0L : span & (-1L << ((r + 1) * 8));
+        }
+    }
+
+    private final Entry[] entries;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Create a pawn hash table with the default number of entries.
+     */
+    public PawnHashTable() {
+        this(DEFAULT_SIZE_BITS);
+    }
+
+    /**
+     * Create a pawn hash table with 2^sizeBits entries.
+     * @param sizeBits log2 of the number of entries
+     */
+    public PawnHashTable(int sizeBits) {
+        this.entries = new Entry[1 << sizeBits];
+        this.mask = (1 << sizeBits) - 1;
+    }
+
+    /**
+     * Returns the pawn structure evaluation of a chess state, computing it only if the state's
+     * pawn structure is not already in the table.
+     * @param state chess state
+     * @return pawn structure entry
+     */
+    public Entry probe(ChessGame state) {
+        long key = state.getPawnKey();
+        int idx = (int) key & mask;
+        Entry entry = entries[idx];
+        if (entry != null && entry.key == key) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        entry = evaluate(key, state.getPawns(TeamColor.WHITE), state.getPawns(TeamColor.BLACK));
+        entries[idx] = entry;
+        return entry;
+    }
+
+    /**
+     * Returns the fraction of lookups that were served from the table.
+     * @return hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long total = hits.sum() + misses.sum();
+        return total == 0 ? 0.0 : (double) hits.sum() / total;
+    }
+
+    // Evaluate the pawn structure given by the white and black pawn bit masks.
+    private static Entry evaluate(long key, long whitePawns, long blackPawns) {
+        int midgame = 0;
+        int endgame = 0;
+        long whitePassed = 0L;
+        long blackPassed = 0L;
+
+        for (int c = 0; c < 8; c++) {
+            int whiteDoubled = Math.max(0, Long.bitCount(whitePawns & FILES[c]) - 1);
+            int blackDoubled = Math.max(0, Long.bitCount(blackPawns & FILES[c]) - 1);
+            midgame += (whiteDoubled - blackDoubled) * DOUBLED_MIDGAME;
+            endgame += (whiteDoubled - blackDoubled) * DOUBLED_ENDGAME;
+        }
+
+        for (long pawns = whitePawns; pawns != 0; pawns &= pawns - 1) {
+            int i = Long.numberOfTrailingZeros(pawns);
+            if ((whitePawns & ADJACENT_FILES[i % 8]) == 0) {
+                midgame += ISOLATED_MIDGAME;
+                endgame += ISOLATED_ENDGAME;
+            }
+            if ((blackPawns & WHITE_FRONT_SPANS[i]) == 0) {
+                whitePassed |= 1L << i;
+                midgame += PASSED_MIDGAME[advancement(6 - i / 8)];
+                endgame += PASSED_ENDGAME[advancement(6 - i / 8)];
+            }
+        }
+        for (long pawns = blackPawns; pawns != 0; pawns &= pawns - 1) {
+            int i = Long.numberOfTrailingZeros(pawns);
+            if ((blackPawns & ADJACENT_FILES[i % 8]) == 0) {
+                midgame -= ISOLATED_MIDGAME;
+                endgame -= ISOLATED_ENDGAME;
+            }
+            if ((whitePawns & BLACK_FRONT_SPANS[i]) == 0) {
+                blackPassed |= 1L << i;
+                midgame -= PASSED_MIDGAME[advancement(i / 8 - 1)];
+                endgame -= PASSED_ENDGAME[advancement(i / 8 - 1)];
+            }
+        }
+        return new Entry(key, midgame, endgame, whitePassed, blackPassed);
+    }
+
+    // Clamp the number of rows a pawn has advanced, since custom boards may place pawns anywhere.
+    private static int advancement(int rows) {
+        return Math.max(0, Math.min(rows, PASSED_MIDGAME.length - 1));
+    }
+
+    /**
+     * Class representing the evaluation of a pawn structure.
+     */
+    public static class Entry {
+        private final long key;
+        private final int midgame;
+        private final int endgame;
+        private final long whitePassed;
+        private final long blackPassed;
+
+        private Entry(long key, int midgame, int endgame, long whitePassed, long blackPassed) {
+            this.key = key;
+            this.midgame = midgame;
+            this.endgame = endgame;
+            this.whitePassed = whitePassed;
+            this.blackPassed = blackPassed;
+        }
+
+        /**
+         * Returns the middlegame pawn structure score for a team in centipawns.
+         * @param team team to determine the score for
+         * @return middlegame score
+         */
+        public int getMidgameScore(TeamColor team) {
+            return team == TeamColor.WHITE ? midgame : -midgame;
+        }
+
+        /**
+         * Returns the endgame pawn structure score for a team in centipawns.
+         * @param team team to determine the score for
+         * @return endgame score
+         */
+        public int getEndgameScore(TeamColor team) {
+            return team == TeamColor.WHITE ? endgame : -endgame;
+        }
+
+        /**
+         * Returns the squares of a team's passed pawns as a bit mask, with bit i set if
+         * board square i holds a passed pawn.
+         * @param team team of the pawns
+         * @return passed pawn bit mask
+         */
+        public long getPassedPawns(TeamColor team) {
+            return team == TeamColor.WHITE ? whitePassed : blackPassed;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package bot;
+
+import functionality.ChessGame;
+import functionality.TeamColor;
+
+/**
+ * Class representing a chess game utility evaluator based on middlegame and endgame piece-square
+ * tables. The table sums are maintained by the ChessGame as pieces move, so evaluating a state only
+ * reads them and blends the two according to how much material is left on the board. Pawn structure
+ * terms are looked up in a pawn hash table.
+ */
+public class PieceSquareEvaluator implements UtilityEvaluator<ChessGame> {
+    private static final double WIN_UTILITY = 1000000.0;
+    private static final int MAX_PHASE = 24;
+
+    private final PawnHashTable pawnTable;
+
+    /**
+     * Create a piece-square evaluator with its own pawn hash table.
+     */
+    public PieceSquareEvaluator() {
+        this(new PawnHashTable());
+    }
+
+    /**
+     * Create a piece-square evaluator that looks up pawn structure terms in the given table.
+     * @param pawnTable pawn hash table
+     */
+    public PieceSquareEvaluator(PawnHashTable pawnTable) {
+        this.pawnTable = pawnTable;
+    }
+
+    /**
+     * Returns the utility of a given chess state for a specified team, in pawns.
+     *
+     * @param state current game state
+     * @param team team to determine the utility for
+     * @param depth depth in a tree search that this utility is being retrieved in
+     * @return a double representing the utility of this chess state for the given team with
+     *         a larger number representing a more advantageous situation for the team
+     */
+    @Override
+    public double utility(ChessGame state, TeamColor team, int depth) {
+        if (state.isGameOver()) {
+            if (!state.isInCheck()) {
+                // Stalemate or a draw by insufficient material.
+                return 0.0;
+            }
+            // Prefer quicker wins and slower losses.
+            if (team == state.currentTurn()) {
+                return -WIN_UTILITY + depth;
+            } else {
+                return WIN_UTILITY - depth;
+            }
+        }
+        return taperedScore(state, team) / 100.0;
+    }
+
+    /**
+     * Returns the score of a given chess state for a specified team in centipawns.
+     *
+     * @param state current game state
+     * @param team team to determine the score for
+     * @param ply distance of the state from the root of the search
+     * @return score in centipawns, with mates encoded as described in Scores
+     */
+    @Override
+    public int score(ChessGame state, TeamColor team, int ply) {
+        if (state.isGameOver()) {
+            if (!state.isInCheck()) {
+                return 0;
+            }
+            return team == state.currentTurn() ? Scores.matedIn(ply) : Scores.mateIn(ply);
+        }
+        return taperedScore(state, team);
+    }
+
+    /**
+     * Returns the piece-square and pawn structure score of a state for a team in centipawns,
+     * tapered between the middlegame and endgame scores by the game phase.
+     * @param state current game state
+     * @param team team to determine the score for
+     * @return score in centipawns
+     */
+    public int taperedScore(ChessGame state, TeamColor team) {
+        TeamColor opponent = TeamColor.oppositeTeam(team);
+        PawnHashTable.Entry pawns = pawnTable.probe(state);
+        int midgame = state.getMidgameScore(team) - state.getMidgameScore(opponent)
+                + pawns.getMidgameScore(team);
+        int endgame = state.getEndgameScore(team) - state.getEndgameScore(opponent)
+                + pawns.getEndgameScore(team);
+        int phase = state.getGamePhase();
+        return (midgame * phase + endgame * (MAX_PHASE - phase)) / MAX_PHASE;
+    }
+}
@@ -0,0 +1,20 @@
+package bot;
+
+import functionality.TeamColor;
+
+/**
+ * Interface for classes that can be used to score different game states as an integer number of
+ * centipawns (hundredths of a pawn). Wins and losses are encoded as mate scores (see Scores) that
+ * depend on how many plies from the root of the search they occur.
+ */
+public interface ScoreEvaluator<T> {
+
+    /**
+     * Returns the score of the current state for a given team.
+     * @param state current game state
+     * @param team team to determine the score for
+     * @param ply distance of the state from the root of the search
+     * @return score in centipawns, with larger scores being more advantageous for the team
+     */
+    public int score(T state, TeamColor team, int ply);
+}
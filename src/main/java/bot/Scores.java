@@ -0,0 +1,91 @@
+package bot;
+
+/**
+ * Class containing the constants and helpers for integer search scores. Regular scores are in
+ * centipawns and lie strictly between -MATE_BOUND and MATE_BOUND. A win found n plies from the
+ * root of the search scores MATE - n, and a loss scores -(MATE - n), so that quicker wins and
+ * slower losses are preferred.
+ */
+public final class Scores {
+    /**
+     * Score larger than any score a search can return.
+     */
+    public static final int INFINITY = 32000;
+    /**
+     * Score of a win at the root of the search.
+     */
+    public static final int MATE = 31000;
+    /**
+     * Scores at or beyond this magnitude are mate scores.
+     */
+    public static final int MATE_BOUND = MATE - 1000;
+
+    private Scores() { }
+
+    /**
+     * Returns the score of a win a given number of plies from the root.
+     * @param ply distance from the root of the search
+     * @return mate score
+     */
+    public static int mateIn(int ply) {
+        return MATE - ply;
+    }
+
+    /**
+     * Returns the score of a loss a given number of plies from the root.
+     * @param ply distance from the root of the search
+     * @return mated score
+     */
+    public static int matedIn(int ply) {
+        return -MATE + ply;
+    }
+
+    /**
+     * Returns whether a score represents a forced win or loss.
+     * @param score search score
+     * @return true if the score is a mate score, and false otherwise.
+     */
+    public static boolean isMate(int score) {
+        return Math.abs(score) >= MATE_BOUND;
+    }
+
+    /**
+     * Converts a score relative to the root into one relative to a node at the given ply, so that
+     * it can be stored in a table and reused when the node is reached at a different ply.
+     * @param score score relative to the root
+     * @param ply distance of the node from the root
+     * @return score relative to the node
+     */
+    public static int toTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score + ply;
+        } else if (score <= -MATE_BOUND) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    /**
+     * Converts a score stored by 'toTable' back into one relative to the root.
+     * @param score score relative to the node
+     * @param ply distance of the node from the root
+     * @return score relative to the root
+     */
+    public static int fromTable(int score, int ply) {
+        if (score >= MATE_BOUND) {
+            return score - ply;
+        } else if (score <= -MATE_BOUND) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    /**
+     * Converts a score into pawns, e.g. for display.
+     * @param score score in centipawns
+     * @return score in pawns
+     */
+    public static double toPawns(int score) {
+        return score / 100.0;
+    }
+}
@@ -0,0 +1,85 @@
+package bot;
+
+/**
+ * Class holding the move ordering heuristics learned during a tree search: killer moves (quiet
+ * moves that caused a cutoff at the same ply elsewhere in the tree) and a history score per move
+ * that grows each time the move causes a cutoff.
+ */
+public class SearchHeuristics {
+    private static final int MAX_PLY = 128;
+    private static final int KILLERS_PER_PLY = 2;
+    // Only the source and destination squares of a move code are used for history scores.
+    private static final int HISTORY_MASK = 0xFFF;
+    private static final int MAX_HISTORY = 1 << 20;
+
+    private final int[][] killers = new int[MAX_PLY][KILLERS_PER_PLY];
+    private final int[] history = new int[HISTORY_MASK + 1];
+
+    /**
+     * Returns the killer move codes for a given ply, most recent first. Empty slots contain 0.
+     * @param ply distance from the root of the search
+     * @return killer move codes
+     */
+    public int[] killersAt(int ply) {
+        return killers[Math.min(ply, MAX_PLY - 1)];
+    }
+
+    /**
+     * Returns the history score of a move, with higher scores representing moves that caused
+     * cutoffs more often.
+     * @param moveCode move code
+     * @return history score
+     */
+    public int historyScore(int moveCode) {
+        return history[moveCode & HISTORY_MASK];
+    }
+
+    /**
+     * Record that a quiet move caused a cutoff at the given ply with the given remaining depth.
+     * @param moveCode code of the move that caused the cutoff
+     * @param ply distance from the root of the search
+     * @param depth remaining search depth below the node
+     */
+    public void recordCutoff(int moveCode, int ply, int depth) {
+        if (moveCode == 0) {
+            return;
+        }
+        int[] plyKillers = killersAt(ply);
+        if (plyKillers[0] != moveCode) {
+            plyKillers[1] = plyKillers[0];
+            plyKillers[0] = moveCode;
+        }
+
+        int idx = moveCode & HISTORY_MASK;
+        history[idx] += depth * depth;
+        // Keep the scores bounded while preserving their relative order.
+        if (history[idx] > MAX_HISTORY) {
+            for (int i = 0; i < history.length; i++) {
+                history[i] /= 2;
+            }
+        }
+    }
+
+    /**
+     * Halve all history scores, so that cutoffs in the next search count for more than those of
+     * earlier searches. Killer moves are kept, since they are checked to be legal before use.
+     */
+    public void age() {
+        for (int i = 0; i < history.length; i++) {
+            history[i] /= 2;
+        }
+    }
+
+    /**
+     * Forget all killer moves and history scores.
+     */
+    public void clear() {
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = 0;
+            plyKillers[1] = 0;
+        }
+        for (int i = 0; i < history.length; i++) {
+            history[i] = 0;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package bot;
+
+/**
+ * Interface for objects that follow the progress of a search made by a MinimaxTreeExplorer. The
+ * listener is called on the thread running the search.
+ */
+public interface SearchListener {
+    /**
+     * Called when a search has completed a line at a depth.
+     * @param depth depth the line was searched to
+     * @param line index of the line, 0 for the best move
+     * @param score score of the line in centipawns, for the side to move at the root
+     * @param nodes number of nodes visited by the search so far
+     * @param millis time taken by the search so far, in milliseconds
+     * @param pv move codes of the line, starting with the move from the root
+     */
+    void lineCompleted(int depth, int line, int score, long nodes, long millis, int[] pv);
+}
@@ -0,0 +1,39 @@
+package bot;
+
+/**
+ * Enum for the playing strengths of the bot. Each strength except DEFAULT limits the number of
+ * nodes searched per move, so that every move costs about the same time whatever the position, and
+ * the weaker ones add random noise to the scores of the bot's candidate moves. DEFAULT searches to
+ * a fixed depth instead, which is cheap in simple positions and expensive in complex ones.
+ */
+public enum Strength {
+    BEGINNER(1000, 200),
+    NOVICE(5000, 100),
+    INTERMEDIATE(20000, 40),
+    ADVANCED(100000, 0),
+    DEFAULT(0, 0);
+
+    private final long nodeLimit;
+    private final int noise;
+
+    Strength(long nodeLimit, int noise) {
+        this.nodeLimit = nodeLimit;
+        this.noise = noise;
+    }
+
+    /**
+     * Returns the number of nodes searched per move at this strength.
+     * @return node limit, or 0 if the search is only limited by depth
+     */
+    public long getNodeLimit() {
+        return nodeLimit;
+    }
+
+    /**
+     * Returns the largest noise added to the score of a candidate move at this strength.
+     * @return noise in centipawns
+     */
+    public int getNoise() {
+        return noise;
+    }
+}
@@ -0,0 +1,179 @@
+package bot;
+
+/**
+ * Fixed-size hash table that remembers, for positions visited during a search, the best move
+ * found, the depth the position was searched to and the resulting score along with whether that
+ * score is exact or only a bound. The best move is tried first ("hash move") the next time the
+ * position is reached, and the score can end the search of the position early.
+ *
+ * Each entry is packed into a single long (move in bits 0-15, depth in bits 16-23, bound in bits
+ * 24-25, age in bits 26-31 and score in bits 32-63) and stored next to the position key XOR-ed with
+ * the entry, so that an entry torn by concurrent writers is detected as a miss rather than returned.
+ *
+ * The table is kept from one search to the next. Entries left by earlier searches can still be
+ * probed, but are replaced regardless of their depth, so that deep entries of positions that can no
+ * longer be reached do not fill up the table.
+ */
+public class TranspositionTable {
+    /**
+     * Bound type of a score that is a lower bound of the position's true score (fail high).
+     */
+    public static final int LOWER_BOUND = 1;
+    /**
+     * Bound type of a score that is an upper bound of the position's true score (fail low).
+     */
+    public static final int UPPER_BOUND = 2;
+    /**
+     * Bound type of a score that is the position's true score.
+     */
+    public static final int EXACT = 3;
+
+    private static final int DEFAULT_SIZE_BITS = 18;
+    private static final int AGE_MASK = 0x3F;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    // Written by 'newSearch' and read by every store, which may be on other threads.
+    private volatile int age;
+
+    /**
+     * Create a transposition table with the default number of entries.
+     */
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_BITS);
+    }
+
+    /**
+     * Create a transposition table with 2^sizeBits entries.
+     * @param sizeBits log2 of the number of entries
+     */
+    public TranspositionTable(int sizeBits) {
+        this.keys = new long[1 << sizeBits];
+        this.data = new long[1 << sizeBits];
+        this.mask = (1 << sizeBits) - 1;
+    }
+
+    /**
+     * Returns the packed entry stored for a position. Use the static accessors of this class to
+     * read its fields.
+     * @param key position key
+     * @return packed entry, or 0 if the position is not in the table
+     */
+    public long probe(long key) {
+        if (key == 0L) {
+            return 0L;
+        }
+        int idx = (int) key & mask;
+        long entry = data[idx];
+        if ((keys[idx] ^ entry) != key) {
+            return 0L;
+        }
+        return entry;
+    }
+
+    /**
+     * Returns the best move stored for a position.
+     * @param key position key
+     * @return best move code, or 0 if the position is not in the table
+     */
+    public int probeMove(long key) {
+        return move(probe(key));
+    }
+
+    /**
+     * Store the result of searching a position. An existing entry for a different position is
+     * only replaced by an entry of at least the same depth.
+     * @param key position key
+     * @param moveCode best move code, or 0 if unknown
+     * @param depth remaining depth the position was searched to
+     * @param bound LOWER_BOUND, UPPER_BOUND or EXACT
+     * @param score score of the position, relative to the position (see Scores.toTable)
+     */
+    public void store(long key, int moveCode, int depth, int bound, int score) {
+        if (key == 0L) {
+            return;
+        }
+        int idx = (int) key & mask;
+        long old = data[idx];
+        boolean sameKey = (keys[idx] ^ old) == key;
+        if (!sameKey && old != 0L && age(old) == age && depth(old) > depth) {
+            return;
+        }
+        // Keep the previous best move if this search did not find one.
+        if (moveCode == 0 && sameKey) {
+            moveCode = move(old);
+        }
+        long entry = (moveCode & 0xFFFFL)
+                | ((long) Math.max(0, Math.min(depth, 0xFF)) << 16)
+                | ((long) (bound & 3) << 24)
+                | ((long) age << 26)
+                | ((long) score << 32);
+        data[idx] = entry;
+        keys[idx] = key ^ entry;
+    }
+
+    /**
+     * Mark the entries stored so far as belonging to an earlier search. A table shared by searches
+     * running at once should only be aged by its owner, between generations of searches, since
+     * aging also makes the entries of the searches still running replaceable.
+     */
+    public void newSearch() {
+        age = (age + 1) & AGE_MASK;
+    }
+
+    /**
+     * Remove all entries from the table.
+     */
+    public void clear() {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 0L;
+            data[i] = 0L;
+        }
+    }
+
+    /**
+     * Returns the best move code of a packed entry.
+     * @param entry packed entry
+     * @return move code, or 0 for none
+     */
+    public static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    /**
+     * Returns the remaining depth of a packed entry.
+     * @param entry packed entry
+     * @return depth
+     */
+    public static int depth(long entry) {
+        return (int) ((entry >>> 16) & 0xFF);
+    }
+
+    /**
+     * Returns the bound type of a packed entry.
+     * @param entry packed entry
+     * @return LOWER_BOUND, UPPER_BOUND or EXACT, or 0 for an empty entry
+     */
+    public static int bound(long entry) {
+        return (int) ((entry >>> 24) & 3);
+    }
+
+    /**
+     * Returns the age of a packed entry: the number of the search that stored it, modulo 64.
+     * @param entry packed entry
+     * @return age
+     */
+    public static int age(long entry) {
+        return (int) ((entry >>> 26) & AGE_MASK);
+    }
+
+    /**
+     * Returns the score of a packed entry.
+     * @param entry packed entry
+     * @return score relative to the position
+     */
+    public static int score(long entry) {
+        return (int) (entry >> 32);
+    }
+}
@@ -4,8 +4,10 @@ import functionality.TeamColor;
 
 /**
  * Interface for classes that can be used to calculated the utility of different game states.
+ * Utilities are measured in pawns, and are scaled to centipawn scores for the search by the
+ * default 'score' method.
  */
-public interface UtilityEvaluator<T> {
+public interface UtilityEvaluator<T> extends ScoreEvaluator<T> {
 
     /**
      * Returns the utility of the current state for a given team as a quantitative figure.
@@ -14,4 +16,19 @@ public interface UtilityEvaluator<T> {
      * @return a decimal number representing the utility of this game state for the given team.
      */
     public double utility(T state, TeamColor team, int depth);
+
+    /**
+     * Returns the utility of the current state converted to centipawns and rounded. Utilities
+     * too large to be a regular score are clamped just inside the mate score range.
+     * @param state current game state
+     * @param team team to determine the score for
+     * @param ply distance of the state from the root of the search
+     * @return score in centipawns
+     */
+    @Override
+    public default int score(T state, TeamColor team, int ply) {
+        double scaled = Math.rint(utility(state, team, ply) * 100);
+        int bound = Scores.MATE_BOUND - 1;
+        return (int) Math.max(-bound, Math.min(bound, scaled));
+    }
 }
@@ -2,6 +2,8 @@ package functionality;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Scanner;
@@ -16,6 +18,17 @@ public class ChessBoard implements Iterable<ChessPiece> {
     // board[0] is top-left corner (black side). board[7] is top-right corner (black side).
     // board[56] is bottom-left corner (white side). board[63] is bottom-right corner (white side).
     private final ChessPiece[] board = new ChessPiece[LENGTH * LENGTH];
+    // Zobrist hash of the pieces on the board, updated whenever a square changes.
+    private long key = 0L;
+    // Zobrist hash of only the pawns on the board, and the squares of each team's pawns as bit
+    // masks (bit i set if board square i holds a pawn), white at index 0 and black at index 1.
+    private long pawnKey = 0L;
+    private final long[] pawns = new long[2];
+    // Piece-square table sums for each team (white at index 0, black at index 1) and the game
+    // phase, also updated whenever a square changes.
+    private final int[] midgameScores = new int[2];
+    private final int[] endgameScores = new int[2];
+    private int phase = 0;
 
     /**
      * Constructs a ChessBoard with an empty board (i.e. no pieces on the board).
@@ -31,19 +44,32 @@ public class ChessBoard implements Iterable<ChessPiece> {
      */
     public ChessBoard(String boardFile) {
         try {
-            File file = new File(boardFile);
-            Scanner fileScan = new Scanner(file);
-            int i = 0;
-            while (fileScan.hasNext()) {
-                board[i] = ChessPiece.generatePieceFrom(fileScan.next());
-                i += 1;
-            }
+            readLayout(new Scanner(new File(boardFile)));
         } catch (FileNotFoundException e) {
             System.out.println(e.getMessage());
             e.printStackTrace();
         }
     }
 
+    /**
+     * Constructs a ChessBoard from a stream in the same format as the "boardFile" of
+     * ChessBoard(String), such as a layout loaded from the classpath.
+     * @param layout stream to parse
+     */
+    public ChessBoard(InputStream layout) {
+        readLayout(new Scanner(layout, StandardCharsets.UTF_8));
+    }
+
+    // Place the pieces given by the tokens of a layout on the board, in square order.
+    private void readLayout(Scanner scan) {
+        int i = 0;
+        while (scan.hasNext()) {
+            setSquare(i, ChessPiece.generatePieceFrom(scan.next()));
+            i += 1;
+        }
+        scan.close();
+    }
+
     /**
      * Returns a String representation of the state of the board.
      *
@@ -113,7 +139,7 @@ public class ChessBoard implements Iterable<ChessPiece> {
      * @param coord where to place the piece on the board
      */
     public void placePiece(ChessPiece p, BoardCoordinate coord) {
-        board[coord.toIndex()] = p;
+        setSquare(coord.toIndex(), p);
     }
 
     /**
@@ -121,7 +147,84 @@ public class ChessBoard implements Iterable<ChessPiece> {
      * @param coord square to clear.
      */
     public void clearSquare(BoardCoordinate coord) {
-        board[coord.toIndex()] = null;
+        setSquare(coord.toIndex(), null);
+    }
+
+    // Set the contents of a square, keeping the incremental board state up to date.
+    private void setSquare(int index, ChessPiece p) {
+        updateIncrementalState(ZobristKeys.pieceIndex(board[index]), index, -1);
+        updateIncrementalState(ZobristKeys.pieceIndex(p), index, 1);
+        board[index] = p;
+    }
+
+    // Add (sign == 1) or remove (sign == -1) the piece with the given piece index on the given square
+    // from the incremental board state.
+    private void updateIncrementalState(int pieceIdx, int index, int sign) {
+        if (pieceIdx < 0) {
+            return;
+        }
+        int team = pieceIdx / 6;
+        key ^= ZobristKeys.PIECE_SQUARE[pieceIdx][index];
+        if (pieceIdx % 6 == 0) {
+            pawnKey ^= ZobristKeys.PIECE_SQUARE[pieceIdx][index];
+            pawns[team] ^= 1L << index;
+        }
+        midgameScores[team] += sign * PieceSquareTables.MIDGAME[pieceIdx][index];
+        endgameScores[team] += sign * PieceSquareTables.ENDGAME[pieceIdx][index];
+        phase += sign * PieceSquareTables.PHASE[pieceIdx];
+    }
+
+    /**
+     * Returns the Zobrist hash of the pieces currently on the board.
+     * @return board hash
+     */
+    public long getKey() {
+        return key;
+    }
+
+    /**
+     * Returns the Zobrist hash of only the pawns on the board.
+     * @return pawn hash
+     */
+    public long getPawnKey() {
+        return pawnKey;
+    }
+
+    /**
+     * Returns the squares occupied by a team's pawns as a bit mask, with bit i set if board
+     * square i holds one of the team's pawns.
+     * @param team team of the pawns
+     * @return pawn bit mask
+     */
+    public long getPawns(TeamColor team) {
+        return pawns[team == TeamColor.WHITE ? 0 : 1];
+    }
+
+    /**
+     * Returns the sum of the middlegame piece-square values (including material) of a team's pieces.
+     * @param team team to sum the values of
+     * @return middlegame score in centipawns
+     */
+    public int getMidgameScore(TeamColor team) {
+        return midgameScores[team == TeamColor.WHITE ? 0 : 1];
+    }
+
+    /**
+     * Returns the sum of the endgame piece-square values (including material) of a team's pieces.
+     * @param team team to sum the values of
+     * @return endgame score in centipawns
+     */
+    public int getEndgameScore(TeamColor team) {
+        return endgameScores[team == TeamColor.WHITE ? 0 : 1];
+    }
+
+    /**
+     * Returns the game phase based on the non-pawn material on the board, from 0 (only kings and
+     * pawns) up to 24 (all pieces of the starting position), capped at 24 after promotions.
+     * @return game phase
+     */
+    public int getGamePhase() {
+        return Math.min(phase, PieceSquareTables.MAX_PHASE);
     }
 
     /**
@@ -207,6 +310,12 @@ public class ChessBoard implements Iterable<ChessPiece> {
         for (int i = 0; i < boardCopy.board.length; i++) {
             boardCopy.board[i] = board[i] == null ? null : board[i].copy();
         }
+        boardCopy.key = key;
+        boardCopy.pawnKey = pawnKey;
+        System.arraycopy(pawns, 0, boardCopy.pawns, 0, 2);
+        System.arraycopy(midgameScores, 0, boardCopy.midgameScores, 0, 2);
+        System.arraycopy(endgameScores, 0, boardCopy.endgameScores, 0, 2);
+        boardCopy.phase = phase;
         return boardCopy;
     }
 }
\ No newline at end of file
@@ -1,7 +1,10 @@
 package functionality;
 
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -9,21 +12,33 @@ import java.util.Set;
  * attempted moves by players and determining game outcomes.
  */
 public class ChessGame implements Iterable<ChessPiece> {
+    /**
+     * FEN of the standard starting position.
+     */
+    public static final String STARTING_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final String STANDARD_LAYOUT = "standardLayout.txt";
+
     private TeamColor turn;
     private ChessBoard board;
     private BoardCoordinate pawnPromotionCoord;
     private BoardCoordinate twoSpaceMovedPawn;
+    private BoardCoordinate nullMoveSavedPawn;
     private ChessPiece lastRemoved;
     private Move lastMove;
+    private boolean lastMoveCapture = false;
     private boolean isCheck = false;
     private boolean isOver = false;
+    // Number of moves since the last capture or pawn move, and number of the current full move,
+    // as counted in FEN.
+    private int halfmoveClock = 0;
+    private int fullmoveNumber = 1;
 
     /**
      * Creates a new chess game with the standard chess board and with white being the first
      * team to play, as per traditional rules.
      */
     public ChessGame() {
-        this("src/main/resources/standardLayout.txt", TeamColor.WHITE);
+        this(loadLayout(STANDARD_LAYOUT), TeamColor.WHITE);
     }
 
     /**
@@ -42,7 +57,190 @@ public class ChessGame implements Iterable<ChessPiece> {
      * @param turn team to start first
      */
     public ChessGame(String boardFile, TeamColor turn) {
-        this.board = new ChessBoard(boardFile);
+        this(new ChessBoard(boardFile), turn);
+    }
+
+    /**
+     * Creates a new chess game with the starting board configuration set by a layout file on the
+     * classpath, such as "standardLayout.txt", and with the given team starting first.
+     * @param layout name of the layout resource, relative to the root of the classpath
+     * @param turn team to start first
+     * @throws IllegalArgumentException if there is no such resource
+     * @return new chess game
+     */
+    public static ChessGame fromResource(String layout, TeamColor turn) {
+        return new ChessGame(loadLayout(layout), turn);
+    }
+
+    /**
+     * Creates a new chess game from a position in Forsyth-Edwards Notation. The halfmove clock and
+     * fullmove number may be left out.
+     * @param fen position, e.g. ChessGame.STARTING_FEN
+     * @throws IllegalArgumentException if the position is not valid FEN
+     * @return new chess game
+     */
+    public static ChessGame fromFen(String fen) {
+        ChessBoard board = new ChessBoard();
+        int n = fen.length();
+        int i = 0;
+        int row = 0;
+        int col = 0;
+        int[] kings = new int[2];
+        while (i < n && fen.charAt(i) != ' ') {
+            char c = fen.charAt(i++);
+            if (c == '/') {
+                if (col != 8 || ++row > 7) {
+                    throw invalidFen(fen);
+                }
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                ChessPiece p = pieceFromFen(c);
+                if (p == null || col >= 8) {
+                    throw invalidFen(fen);
+                }
+                // Rooks and kings only keep the castling rights given below, and pawns can only move
+                // two squares from their starting row.
+                int startRow = p.getColor() == TeamColor.WHITE ? 6 : 1;
+                if (p instanceof Rook || p instanceof King || (p instanceof Pawn && row != startRow)) {
+                    p.setHasBeenMoved(true);
+                }
+                if (p instanceof King) {
+                    kings[p.getColor() == TeamColor.WHITE ? 0 : 1]++;
+                }
+                board.placePiece(p, new BoardCoordinate(row, col++));
+            }
+            if (col > 8) {
+                throw invalidFen(fen);
+            }
+        }
+        if (row != 7 || col != 8 || kings[0] != 1 || kings[1] != 1 || i + 2 > n) {
+            throw invalidFen(fen);
+        }
+
+        char side = fen.charAt(++i);
+        if ((side != 'w' && side != 'b') || (i + 1 < n && fen.charAt(i + 1) != ' ')) {
+            throw invalidFen(fen);
+        }
+        ChessGame game = new ChessGame(board, side == 'w' ? TeamColor.WHITE : TeamColor.BLACK);
+        i += 2;
+
+        if (i < n && fen.charAt(i) == '-') {
+            i++;
+        } else {
+            while (i < n && fen.charAt(i) != ' ') {
+                if (!game.grantCastling(fen.charAt(i++))) {
+                    throw invalidFen(fen);
+                }
+            }
+        }
+        i++;
+
+        if (i < n && fen.charAt(i) != '-') {
+            // The skipped square is on the third rank after a move by white, and on the sixth after
+            // a move by black.
+            char rank = game.turn == TeamColor.BLACK ? '3' : '6';
+            if (i + 1 >= n || fen.charAt(i) < 'a' || fen.charAt(i) > 'h' || fen.charAt(i + 1) != rank) {
+                throw invalidFen(fen);
+            }
+            BoardCoordinate target = new BoardCoordinate('8' - fen.charAt(i + 1), fen.charAt(i) - 'a');
+            // The pawn that just moved two squares is one row past the square it skipped, and both
+            // the skipped square and the one it moved from are empty.
+            int step = game.turn == TeamColor.BLACK ? -1 : 1;
+            BoardCoordinate pawn = new BoardCoordinate(target.r + step, target.c);
+            ChessPiece p = board.getPieceAt(pawn);
+            if (!(p instanceof Pawn) || p.getColor() != TeamColor.oppositeTeam(game.turn)
+                    || board.getPieceAt(target) != null
+                    || board.getPieceAt(new BoardCoordinate(target.r - step, target.c)) != null) {
+                throw invalidFen(fen);
+            }
+            game.twoSpaceMovedPawn = pawn;
+            i += 2;
+        } else {
+            i++;
+        }
+
+        if (i < n) {
+            int[] counters = {0, 1};
+            for (int k = 0; k < 2 && i < n; k++) {
+                int start = ++i;
+                int value = 0;
+                while (i < n && fen.charAt(i) >= '0' && fen.charAt(i) <= '9') {
+                    value = value * 10 + fen.charAt(i++) - '0';
+                }
+                if (i == start || (i < n && fen.charAt(i) != ' ')) {
+                    throw invalidFen(fen);
+                }
+                counters[k] = value;
+            }
+            game.halfmoveClock = counters[0];
+            game.fullmoveNumber = Math.max(1, counters[1]);
+        }
+
+        game.postMoveOutcome();
+        return game;
+    }
+
+    /**
+     * Returns the current position in Forsyth-Edwards Notation.
+     * @return FEN of the position
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        int empty = 0;
+        int i = 0;
+        for (ChessPiece p : board) {
+            if (p == null || p.getColor() == null) {
+                empty++;
+            } else {
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char name = p.getShortName();
+                fen.append(p.getColor() == TeamColor.WHITE ? Character.toUpperCase(name) : name);
+            }
+            if (i % 8 == 7) {
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                if (i != 63) {
+                    fen.append('/');
+                }
+            }
+            i++;
+        }
+
+        fen.append(turn == TeamColor.WHITE ? " w " : " b ");
+        int length = fen.length();
+        if (isUnmoved(60, King.class)) {
+            appendIf(fen, isUnmoved(63, Rook.class), 'K');
+            appendIf(fen, isUnmoved(56, Rook.class), 'Q');
+        }
+        if (isUnmoved(4, King.class)) {
+            appendIf(fen, isUnmoved(7, Rook.class), 'k');
+            appendIf(fen, isUnmoved(0, Rook.class), 'q');
+        }
+        if (fen.length() == length) {
+            fen.append('-');
+        }
+
+        if (twoSpaceMovedPawn != null) {
+            // The square skipped by the pawn, behind it from the point of view of its team.
+            int row = turn == TeamColor.BLACK ? twoSpaceMovedPawn.r + 1 : twoSpaceMovedPawn.r - 1;
+            fen.append(' ').append(new BoardCoordinate(row, twoSpaceMovedPawn.c).toAlgebraic());
+        } else {
+            fen.append(" -");
+        }
+        fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+        return fen.toString();
+    }
+
+    // Creates a new chess game with an existing board and the given team starting first.
+    private ChessGame(ChessBoard board, TeamColor turn) {
+        this.board = board;
         this.turn = turn;
     }
 
@@ -101,21 +299,105 @@ public class ChessGame implements Iterable<ChessPiece> {
      * @return a set of all possible moves.
      */
     public Set<Move> getPossibleMoves() {
-        Set<Move> moves = new HashSet<>();
+        Set<Move> moves = new HashSet<>(getPossibleTacticalMoves());
+        moves.addAll(getPossibleQuietMoves());
+        return moves;
+    }
+
+    /**
+     * Return all moves possible for the current turn that capture an opponent's piece (including
+     * en passant attacks) or promote a pawn.
+     * @return a list of all possible capturing and promoting moves.
+     */
+    public List<Move> getPossibleTacticalMoves() {
+        List<Move> moves = new ArrayList<>();
+        addPossibleMoves(moves, false);
+        return moves;
+    }
+
+    /**
+     * Return all moves possible for the current turn that neither capture a piece nor promote a pawn.
+     * @return a list of all possible quiet moves.
+     */
+    public List<Move> getPossibleQuietMoves() {
+        List<Move> moves = new ArrayList<>();
+        addPossibleMoves(moves, true);
+        return moves;
+    }
+
+    // Add all valid moves for the current turn that either are or are not quiet moves to the given list.
+    private void addPossibleMoves(List<Move> moves, boolean quiet) {
         int i = 0;
         for (ChessPiece p : board) {
             if (p != null && p.getColor() == turn) {
                 BoardCoordinate src = new BoardCoordinate(i);
-                for (int j = 0; j < 64; j++) {
-                    BoardCoordinate dest = new BoardCoordinate(j);
-                    if (isValidMove(src, dest)) {
+                // Bit mask of destination squares already added, since some pieces have more than
+                // one relative move to the same square (e.g. pawn attacks and en passant attacks).
+                long added = 0L;
+                for (RelativeMove rm : p.relativeMoves()) {
+                    BoardCoordinate dest = src.add(rm);
+                    if (ChessBoard.isOnBoard(dest) && (added & (1L << dest.toIndex())) == 0 &&
+                            isQuietMove(src, dest) == quiet && isValidMove(src, dest)) {
+                        added |= 1L << dest.toIndex();
                         moves.add(new Move(src, dest));
                     }
                 }
             }
             i += 1;
         }
-        return moves;
+    }
+
+    /**
+     * Returns whether moving the piece at src to dest is currently a valid move. Unlike
+     * 'attemptMove' this does not change the state of the game.
+     * @param src source coordinate
+     * @param dest destination coordinate
+     * @return true if the move is valid, and false otherwise (including when a pawn promotion
+     *         is pending).
+     */
+    public boolean isMoveLegal(BoardCoordinate src, BoardCoordinate dest) {
+        if (pawnPromotionCoord != null || board.getPieceAt(src) == null) {
+            return false;
+        }
+        return isValidMove(src, dest);
+    }
+
+    /**
+     * Returns whether moving the piece at src to dest would capture an opponent's piece,
+     * assuming that the move is valid.
+     * @param src source coordinate
+     * @param dest destination coordinate
+     * @return true if the move is a capture (including en passant), and false otherwise.
+     */
+    public boolean isCaptureMove(BoardCoordinate src, BoardCoordinate dest) {
+        if (board.getPieceAt(dest) != null) {
+            return true;
+        }
+        // A pawn moving diagonally onto an empty square is an en passant attack.
+        return board.getPieceAt(src) instanceof Pawn && src.c != dest.c;
+    }
+
+    /**
+     * Returns whether moving the piece at src to dest would neither capture a piece nor promote
+     * a pawn, assuming that the move is valid.
+     * @param src source coordinate
+     * @param dest destination coordinate
+     * @return true if the move is quiet, and false otherwise.
+     */
+    public boolean isQuietMove(BoardCoordinate src, BoardCoordinate dest) {
+        if (isCaptureMove(src, dest)) {
+            return false;
+        }
+        return !(board.getPieceAt(src) instanceof Pawn) || (dest.r != 0 && dest.r != 7);
+    }
+
+    /**
+     * Returns the piece at the provided board coordinate.
+     * @param coord board coordinate
+     * @return chess piece at the coordinate, or null if the square is empty
+     */
+    public ChessPiece getPieceAt(BoardCoordinate coord) {
+        return board.getPieceAt(coord);
     }
 
     /**
@@ -145,6 +427,8 @@ public class ChessGame implements Iterable<ChessPiece> {
         }
 
         ChessPiece srcPiece = board.getPieceAt(src);
+        lastMoveCapture = isCaptureMove(src, dest);
+        halfmoveClock = srcPiece instanceof Pawn || lastMoveCapture ? 0 : halfmoveClock + 1;
         performMove(src, dest);
         lastMove = new Move(src, dest);
 
@@ -164,6 +448,9 @@ public class ChessGame implements Iterable<ChessPiece> {
             twoSpaceMovedPawn = null;
         }
 
+        if (turn == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
         changeTurn();
 
         if (!srcPiece.getHasBeenMoved()) {
@@ -173,6 +460,21 @@ public class ChessGame implements Iterable<ChessPiece> {
         return postMoveOutcome();
     }
 
+    /**
+     * Attempts a move, promoting the pawn moved to the move's promotion piece (or to a queen if it
+     * has none) when the move reaches the eighth rank.
+     * @param move move to make
+     * @return the outcome of the move as for 'attemptMove(BoardCoordinate, BoardCoordinate)',
+     *         except that MoveOutcome.PAWN_PROMOTION is never returned
+     */
+    public MoveOutcome attemptMove(Move move) {
+        MoveOutcome outcome = attemptMove(move.getFirst(), move.getSecond());
+        if (outcome == MoveOutcome.PAWN_PROMOTION) {
+            outcome = promotePawn(move.getPawnPromotion() == 0 ? 'q' : move.getPawnPromotion());
+        }
+        return outcome;
+    }
+
     /**
      * Method to be called immediately after receiving an outcome equal to MoveOutcome.PAWN_PROMOTION
      * by 'attemptMove' to indicate the piece that the respective pawn should be promoted to.
@@ -210,6 +512,9 @@ public class ChessGame implements Iterable<ChessPiece> {
             board.placePiece(p, pawnPromotionCoord);
             pawnPromotionCoord = null;
 
+            if (turn == TeamColor.BLACK) {
+                fullmoveNumber++;
+            }
             changeTurn();
 
             lastMove = new Move(lastMove.getFirst(), lastMove.getSecond(), pieceChoice);
@@ -525,6 +830,45 @@ public class ChessGame implements Iterable<ChessPiece> {
         return board.iterator();
     }
 
+    /**
+     * Pass the turn to the other team without moving a piece, as used by null-move pruning in
+     * searches. En passant is not possible after a null move. Must be undone with 'unmakeNullMove'
+     * before any other move is made.
+     * @throws IllegalStateException if the team to move is in check or a pawn needs to be promoted
+     */
+    public void makeNullMove() {
+        if (isCheck || pawnPromotionCoord != null) {
+            throw new IllegalStateException("Null move not allowed.");
+        }
+        nullMoveSavedPawn = twoSpaceMovedPawn;
+        twoSpaceMovedPawn = null;
+        changeTurn();
+    }
+
+    /**
+     * Undo the most recent call to 'makeNullMove'.
+     */
+    public void unmakeNullMove() {
+        twoSpaceMovedPawn = nullMoveSavedPawn;
+        nullMoveSavedPawn = null;
+        changeTurn();
+    }
+
+    /**
+     * Returns true iff a team has any pieces other than pawns and its king.
+     * @param team team to check
+     * @return true if the team has a knight, bishop, rook or queen, and false otherwise.
+     */
+    public boolean hasNonPawnMaterial(TeamColor team) {
+        for (ChessPiece p : board) {
+            if (p != null && p.getColor() == team && !(p instanceof Pawn) && !(p instanceof King)
+                    && !(p instanceof DummyPiece)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns the color of the team whose turn it is.
      * @return color of team to move
@@ -546,6 +890,225 @@ public class ChessGame implements Iterable<ChessPiece> {
         return lastMove;
     }
 
+    /**
+     * Return true iff the most recent move executed in this game captured a piece.
+     * @return true if the last move was a capture, and false otherwise.
+     */
+    public boolean isLastMoveCapture() {
+        return lastMoveCapture;
+    }
+
+    /**
+     * Returns the number of moves made since the last capture or pawn move, as used by the fifty
+     * move rule.
+     * @return halfmove clock
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * Returns the number of the current full move, which starts at 1 and is incremented after
+     * each of black's moves.
+     * @return fullmove number
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Returns the Zobrist hash of the current position, which accounts for the pieces on the
+     * board, the team to move, castling rights and en passant availability. The en passant file only
+     * counts when a pawn of the team to move stands beside the pawn that can be captured. Positions that are
+     * equal have equal keys, and unequal positions have equal keys with negligible probability.
+     * @return position hash
+     */
+    public long getKey() {
+        long key = board.getKey();
+        if (turn == TeamColor.BLACK) {
+            key ^= ZobristKeys.BLACK_TO_MOVE;
+        }
+        if (isUnmoved(60, King.class)) {
+            if (isUnmoved(63, Rook.class)) {
+                key ^= ZobristKeys.CASTLING[0];
+            }
+            if (isUnmoved(56, Rook.class)) {
+                key ^= ZobristKeys.CASTLING[1];
+            }
+        }
+        if (isUnmoved(4, King.class)) {
+            if (isUnmoved(7, Rook.class)) {
+                key ^= ZobristKeys.CASTLING[2];
+            }
+            if (isUnmoved(0, Rook.class)) {
+                key ^= ZobristKeys.CASTLING[3];
+            }
+        }
+        if (canCaptureEnPassant()) {
+            key ^= ZobristKeys.EN_PASSANT_FILE[twoSpaceMovedPawn.c];
+        }
+        return key;
+    }
+
+    // Returns true if a pawn of the team to move stands beside the pawn that just moved two
+    // squares, so that the en passant square makes a difference to the position.
+    private boolean canCaptureEnPassant() {
+        if (twoSpaceMovedPawn == null) {
+            return false;
+        }
+        for (int dc = -1; dc <= 1; dc += 2) {
+            BoardCoordinate side = new BoardCoordinate(twoSpaceMovedPawn.r, twoSpaceMovedPawn.c + dc);
+            if (ChessBoard.isOnBoard(side)) {
+                ChessPiece p = board.getPieceAt(side);
+                if (p instanceof Pawn && p.getColor() == turn) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the Zobrist hash of only the pawns in the current position, which is maintained as
+     * pieces move. Positions with the same pawn structure have the same pawn key.
+     * @return pawn hash
+     */
+    public long getPawnKey() {
+        return board.getPawnKey();
+    }
+
+    /**
+     * Returns the squares occupied by a team's pawns as a bit mask, with bit i set if the
+     * board square with index i (see BoardCoordinate) holds one of the team's pawns.
+     * @param team team of the pawns
+     * @return pawn bit mask
+     */
+    public long getPawns(TeamColor team) {
+        return board.getPawns(team);
+    }
+
+    // Loads a board layout from the classpath.
+    private static ChessBoard loadLayout(String layout) {
+        InputStream stream = ChessGame.class.getResourceAsStream("/" + layout);
+        if (stream == null) {
+            throw new IllegalArgumentException("No layout resource named " + layout);
+        }
+        return new ChessBoard(stream);
+    }
+
+    // Returns the piece represented by a FEN character, with upper case for white, or null if the
+    // character does not represent a piece.
+    private static ChessPiece pieceFromFen(char c) {
+        TeamColor color = Character.isUpperCase(c) ? TeamColor.WHITE : TeamColor.BLACK;
+        switch (Character.toLowerCase(c)) {
+            case 'p':
+                return new Pawn(color);
+            case 'n':
+                return new Knight(color);
+            case 'b':
+                return new Bishop(color);
+            case 'r':
+                return new Rook(color);
+            case 'q':
+                return new Queen(color);
+            case 'k':
+                return new King(color);
+            default:
+                return null;
+        }
+    }
+
+    private static IllegalArgumentException invalidFen(String fen) {
+        return new IllegalArgumentException("Invalid FEN: " + fen);
+    }
+
+    // Restore the castling right given by a FEN character by marking the king and rook involved
+    // as unmoved. Returns false if the character is not a castling right or the pieces are not on
+    // their starting squares.
+    private boolean grantCastling(char right) {
+        int kingIdx;
+        int rookIdx;
+        switch (right) {
+            case 'K':
+                kingIdx = 60;
+                rookIdx = 63;
+                break;
+            case 'Q':
+                kingIdx = 60;
+                rookIdx = 56;
+                break;
+            case 'k':
+                kingIdx = 4;
+                rookIdx = 7;
+                break;
+            case 'q':
+                kingIdx = 4;
+                rookIdx = 0;
+                break;
+            default:
+                return false;
+        }
+        ChessPiece king = board.getPieceAt(new BoardCoordinate(kingIdx));
+        ChessPiece rook = board.getPieceAt(new BoardCoordinate(rookIdx));
+        TeamColor color = Character.isUpperCase(right) ? TeamColor.WHITE : TeamColor.BLACK;
+        if (!(king instanceof King) || !(rook instanceof Rook) || king.getColor() != color
+                || rook.getColor() != color) {
+            return false;
+        }
+        king.setHasBeenMoved(false);
+        rook.setHasBeenMoved(false);
+        return true;
+    }
+
+    private static void appendIf(StringBuilder sb, boolean condition, char c) {
+        if (condition) {
+            sb.append(c);
+        }
+    }
+
+    // Returns true iff the square at the given index holds a piece of the given type that
+    // has not been moved yet.
+    private boolean isUnmoved(int index, Class<? extends ChessPiece> type) {
+        ChessPiece p = board.getPieceAt(new BoardCoordinate(index));
+        return p != null && p.getClass() == type && !p.getHasBeenMoved();
+    }
+
+    /**
+     * Return true iff the team to move was put in check by the most recent move.
+     * @return true if the team to move is in check, and false otherwise.
+     */
+    public boolean isInCheck() {
+        return isCheck;
+    }
+
+    /**
+     * Returns the sum of the middlegame piece-square values (including material) of a team's
+     * pieces. The sum is maintained as pieces move, so this takes constant time.
+     * @param team team to sum the values of
+     * @return middlegame score in centipawns
+     */
+    public int getMidgameScore(TeamColor team) {
+        return board.getMidgameScore(team);
+    }
+
+    /**
+     * Returns the sum of the endgame piece-square values (including material) of a team's
+     * pieces. The sum is maintained as pieces move, so this takes constant time.
+     * @param team team to sum the values of
+     * @return endgame score in centipawns
+     */
+    public int getEndgameScore(TeamColor team) {
+        return board.getEndgameScore(team);
+    }
+
+    /**
+     * Returns the game phase, from 0 for a pawn endgame up to 24 for the starting material.
+     * @return game phase
+     */
+    public int getGamePhase() {
+        return board.getGamePhase();
+    }
+
     /**
      * Return true iff the game is now over.
      * @return true if the game is now over, and false otherwise.
@@ -559,15 +1122,16 @@ public class ChessGame implements Iterable<ChessPiece> {
      * @return ChessGame copy
      */
     public ChessGame copy() {
-        ChessGame copy = new ChessGame();
-        copy.turn = this.turn;
-        copy.board = this.board.copy();
+        ChessGame copy = new ChessGame(this.board.copy(), this.turn);
         copy.pawnPromotionCoord = this.pawnPromotionCoord;
         copy.twoSpaceMovedPawn = this.twoSpaceMovedPawn;
         copy.lastRemoved = this.lastRemoved == null ? null : this.lastRemoved.copy();
         copy.lastMove = this.lastMove;
+        copy.lastMoveCapture = this.lastMoveCapture;
         copy.isCheck = this.isCheck;
         copy.isOver = this.isOver;
+        copy.halfmoveClock = this.halfmoveClock;
+        copy.fullmoveNumber = this.fullmoveNumber;
         return copy;
     }
 
@@ -4,6 +4,9 @@ package functionality;
  * Class representing a move of a piece in chess.
  */
 public class Move {
+    // Promotion pieces in the order they are numbered within a move code.
+    private static final String PROMOTION_PIECES = "qrbn";
+
     private BoardCoordinate c1;
     private BoardCoordinate c2;
     private char pawnPromotion;
@@ -55,6 +58,48 @@ public class Move {
         return this.pawnPromotion;
     }
 
+    /**
+     * Returns a compact integer code for this move.
+     *
+     * The lowest 6 bits hold the source square index, the next 6 bits the destination square
+     * index and the next 3 bits the promotion piece (0 for none, then 'q', 'r', 'b', 'n').
+     * Since a move never has the same source and destination square, 0 is never a valid code
+     * and can be used to represent "no move".
+     *
+     * @return move code
+     */
+    public int toCode() {
+        return c1.toIndex() | (c2.toIndex() << 6) | ((PROMOTION_PIECES.indexOf(pawnPromotion) + 1) << 12);
+    }
+
+    /**
+     * Creates a Move from a code produced by 'toCode'.
+     * @param code move code
+     * @return Move represented by the code, or null if the code is 0
+     */
+    public static Move fromCode(int code) {
+        if (code == 0) {
+            return null;
+        }
+        BoardCoordinate src = new BoardCoordinate(code & 63);
+        BoardCoordinate dest = new BoardCoordinate((code >>> 6) & 63);
+        int promotion = (code >>> 12) & 7;
+        if (promotion == 0) {
+            return new Move(src, dest);
+        }
+        return new Move(src, dest, PROMOTION_PIECES.charAt(promotion - 1));
+    }
+
+    /**
+     * Returns this move in long algebraic notation, e.g. "e2e4" or "e7e8q" for a promotion.
+     * @return move string
+     */
+    @Override
+    public String toString() {
+        String move = c1.toAlgebraic() + c2.toAlgebraic();
+        return pawnPromotion == 0 ? move : move + pawnPromotion;
+    }
+
     /**
      * Returns true iff another object is equal to this Move.
      *
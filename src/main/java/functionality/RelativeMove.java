@@ -46,7 +46,7 @@ public class RelativeMove extends BoardCoordinate {
      */
     @Override
     public int hashCode() {
-        return 7 * this.r + 19 * this.c + 5 * this.req.hashCode();
+        return 7 * this.r + 19 * this.c + 5 * this.req.ordinal();
     }
 
     /**
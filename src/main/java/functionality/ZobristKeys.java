@@ -0,0 +1,75 @@
+package functionality;
+
+import java.util.Random;
+
+/**
+ * Class holding the random keys used to compute Zobrist hashes of chess positions.
+ *
+ * The keys are generated from a fixed seed so that the hash of a position is the same
+ * across runs of the program.
+ */
+final class ZobristKeys {
+    private static final long SEED = 0x5EEDC0FFEEL;
+
+    // PIECE_SQUARE[p][i] is the key for piece type p (see 'pieceIndex') on board square i.
+    static final long[][] PIECE_SQUARE = new long[12][64];
+    static final long BLACK_TO_MOVE;
+    // Keys for each castling right: white king side, white queen side, black king side, black queen side.
+    static final long[] CASTLING = new long[4];
+    // Keys for the file of a pawn that can be captured en passant.
+    static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        Random rand = new Random(SEED);
+        for (long[] squares : PIECE_SQUARE) {
+            for (int i = 0; i < squares.length; i++) {
+                squares[i] = rand.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = rand.nextLong();
+        for (int i = 0; i < CASTLING.length; i++) {
+            CASTLING[i] = rand.nextLong();
+        }
+        for (int i = 0; i < EN_PASSANT_FILE.length; i++) {
+            EN_PASSANT_FILE[i] = rand.nextLong();
+        }
+    }
+
+    private ZobristKeys() { }
+
+    /**
+     * Returns the index of a piece into the PIECE_SQUARE table, with white pieces numbered 0 - 5
+     * and black pieces 6 - 11 in the order pawn, knight, bishop, rook, queen, king.
+     * @param p chess piece
+     * @return piece index, or -1 if p is null or is not an actual chess piece
+     */
+    static int pieceIndex(ChessPiece p) {
+        if (p == null) {
+            return -1;
+        }
+        int type;
+        switch (p.getShortName()) {
+            case 'p':
+                type = 0;
+                break;
+            case 'n':
+                type = 1;
+                break;
+            case 'b':
+                type = 2;
+                break;
+            case 'r':
+                type = 3;
+                break;
+            case 'q':
+                type = 4;
+                break;
+            case 'k':
+                type = 5;
+                break;
+            default:
+                return -1;
+        }
+        return p.getColor() == TeamColor.BLACK ? type + 6 : type;
+    }
+}
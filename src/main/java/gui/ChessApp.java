@@ -9,6 +9,8 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CompletionException;
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -18,6 +20,7 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
+import javafx.scene.control.Tooltip;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
@@ -25,10 +28,13 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 
 public class ChessApp extends Application {
     private static final String IMAGE_PATH_PREFIX = "src/main/resources/piece images/";
     private static final int NUM_SQUARES = 64;
+    private static final long BOT_TIME_LIMIT_MILLIS = 15000;
+    private static final long BOT_NODE_LIMIT = 5000000;
 
     private GridPane chessBoard;
     private VBox bestMovesBox;
@@ -51,6 +57,14 @@ public class ChessApp extends Application {
         showSelectionScene(primaryStage);
     }
 
+    @Override
+    public void stop() {
+        // Stop the computer's searches so that they do not keep running after the window closes.
+        if (bot != null) {
+            bot.shutdown();
+        }
+    }
+
     // Show the beginning menu where user can select to play a player vs. player match or play against
     // a computer.
     private void showSelectionScene(Stage primaryStage) {
@@ -146,14 +160,9 @@ public class ChessApp extends Application {
         primaryStage.show();
 
         if (!pvp && playerTeam == TeamColor.BLACK) {
-            new Thread(() -> {
-                try {
-                    Thread.sleep(1000);
-                } catch (InterruptedException e) {
-                    System.out.println(e.getMessage());
-                }
-                performComputersTurn();
-            }).start();
+            PauseTransition pause = new PauseTransition(Duration.seconds(1));
+            pause.setOnFinished(event -> performComputersTurn());
+            pause.play();
         }
     }
 
@@ -345,49 +354,73 @@ public class ChessApp extends Application {
             showStalemateAlert();
         } else if (outcome == ChessGame.MoveOutcome.INSUF_MAT_DRAW) {
             showInsufMatDrawAlert();
-        } else {
-            new Thread(() -> performComputersTurn()).start();
+        } else if (!pvp) {
+            performComputersTurn();
         }
     }
 
+    // Start the computer's search in the background, playing its move on the application thread
+    // once the search completes, or reporting why the search failed.
     private void performComputersTurn() {
-        Move nextMove;
         if (!moveAnalyzeMode) {
-            nextMove = bot.getNextMove();
+            bot.getNextMoveAsync(BOT_TIME_LIMIT_MILLIS, BOT_NODE_LIMIT).whenComplete((move, error) ->
+                    Platform.runLater(() -> {
+                        if (error != null) {
+                            showSearchError(error);
+                        } else {
+                            playComputersMove(move);
+                        }
+                    }));
         } else {
-            Platform.runLater(() -> {
-                HBox box = (HBox) this.bestMovesBox.getChildren().get(0);
-                Label title = (Label) box.getChildren().get(0);
-                title.setText("Thinking...");
-            });
-
-            List<BotAgent.MoveUtility> bestMoves = bot.getNextMoves();
-            Platform.runLater(() -> {
-                updateBestMovesBox(bestMoves);
-            });
-            nextMove = bestMoves.get(0).move;
+            HBox box = (HBox) this.bestMovesBox.getChildren().get(0);
+            Label title = (Label) box.getChildren().get(0);
+            title.setText("Thinking...");
+
+            bot.getNextMovesAsync(BOT_TIME_LIMIT_MILLIS, BOT_NODE_LIMIT).whenComplete((bestMoves, error) ->
+                    Platform.runLater(() -> {
+                        if (error != null) {
+                            showSearchError(error);
+                        } else if (bestMoves.isEmpty()) {
+                            showAlert("The computer has no legal move.");
+                        } else {
+                            updateBestMovesBox(bestMoves);
+                            playComputersMove(bestMoves.get(0).move);
+                        }
+                    }));
         }
+    }
 
+    // Play the computer's move. Must be called on the application thread.
+    private void playComputersMove(Move nextMove) {
         ChessGame.MoveOutcome outcome = game.attemptMove(nextMove.getFirst(), nextMove.getSecond());
         if (outcome == ChessGame.MoveOutcome.FAILURE) {
-            throw new RuntimeException("Computer selected move failed.");
+            showAlert("Computer selected move failed: " + nextMove);
+            return;
         }
 
         if (outcome == ChessGame.MoveOutcome.PAWN_PROMOTION) {
             game.promotePawn(nextMove.getPawnPromotion());
         }
 
-        Platform.runLater(() -> updateBoard());
+        updateBoard();
 
         if (outcome == ChessGame.MoveOutcome.CHECKMATE) {
-            Platform.runLater(() -> showCheckmateAlert());
+            showCheckmateAlert();
         } else if (outcome == ChessGame.MoveOutcome.STALEMATE) {
-            Platform.runLater(() -> showStalemateAlert());
+            showStalemateAlert();
         } else if (outcome == ChessGame.MoveOutcome.INSUF_MAT_DRAW) {
-            Platform.runLater(() -> showInsufMatDrawAlert());
+            showInsufMatDrawAlert();
+        } else {
+            // Think about the expected reply while the player thinks about theirs.
+            bot.startPondering();
         }
     }
 
+    private void showSearchError(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        showAlert("The computer's search failed: " + cause.getMessage());
+    }
+
     private void showCheckmateAlert() {
         showAlert("Checkmate. " + (this.game.currentTurn() == TeamColor.BLACK ? "White wins." : "Black wins."));
     }
@@ -521,6 +554,12 @@ public class ChessApp extends Application {
             imageView.setImage(image);
             Label label = (Label) row.getChildren().get(1);
             label.setText(c1.toAlgebraic() + ", " + c2.toAlgebraic() + ": " + move.utility);
+            StringBuilder line = new StringBuilder();
+            for (Move m : move.line) {
+                line.append(m).append(' ');
+            }
+            label.setTooltip(new Tooltip(line + "\n" + "depth " + move.depth + ", " + move.nodes + " nodes, "
+                    + move.millis + " ms"));
         }
     }
 
@@ -0,0 +1,153 @@
+package host;
+
+import bot.BotAgent;
+import bot.Strength;
+import functionality.ChessGame;
+import functionality.Move;
+import functionality.TeamColor;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Host of many simultaneous games between players and the bot.
+ *
+ * Sessions do not have threads of their own: a player's move is played on the caller's thread,
+ * and the bot's reply is searched by one of a fixed number of workers, one per CPU by default,
+ * completing the future returned to the player. A session has at most one search waiting or
+ * running at a time, and searches are run in the order they are requested, so that every session
+ * gets its turn however many others are busy.
+ *
+ * Each worker keeps a bot per team and strength, and the bot is given the position of the session
+ * to search, so that memory does not grow with the number of sessions beyond the games themselves.
+ */
+public class GameHost {
+    private final ExecutorService workers;
+    private final Map<Long, GameSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final ThreadLocal<Map<Strength, Map<TeamColor, BotAgent>>> bots =
+            ThreadLocal.withInitial(() -> new EnumMap<>(Strength.class));
+
+    /**
+     * Create a host with one worker per available processor.
+     */
+    public GameHost() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create a host with the given number of workers.
+     * @param workerCount number of bot searches run at once
+     */
+    public GameHost(int workerCount) {
+        AtomicInteger count = new AtomicInteger();
+        // A first-in first-out queue serves the sessions' searches in the order they are requested.
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "game-host-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start a new game from the standard starting position.
+     * @param playerTeam team of the player
+     * @param strength playing strength of the bot
+     * @return the new session, whose bot starts searching at once if it plays white (see
+     *         GameSession.getBotReply)
+     */
+    public GameSession createSession(TeamColor playerTeam, Strength strength) {
+        GameSession session = new GameSession(nextId.getAndIncrement(), new ChessGame(),
+                TeamColor.oppositeTeam(playerTeam), strength);
+        sessions.put(session.getId(), session);
+        requestBotMove(session);
+        return session;
+    }
+
+    /**
+     * Returns the session with the given id.
+     * @param id session id
+     * @return session, or null if there is no open session with that id
+     */
+    public GameSession getSession(long id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Returns the number of open sessions.
+     * @return session count
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Close a session. A search already requested for it still completes.
+     * @param id session id
+     */
+    public void closeSession(long id) {
+        sessions.remove(id);
+    }
+
+    /**
+     * Play the player's move in a session and request the bot's reply.
+     * @param session session to play in
+     * @param move player's move
+     * @throws IllegalStateException if it is not the player's turn
+     * @throws IllegalArgumentException if the move is not legal
+     * @return future completed with the bot's reply once it has been played, or with null if the
+     *         game is over after the player's move
+     */
+    public CompletableFuture<Move> play(GameSession session, Move move) {
+        if (!session.playPlayerMove(move)) {
+            throw new IllegalArgumentException("Illegal move " + move);
+        }
+        return requestBotMove(session);
+    }
+
+    /**
+     * Stop the workers. Searches waiting to run are abandoned.
+     */
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    // Queue a search for the bot's move in a session if it is the bot's turn.
+    private CompletableFuture<Move> requestBotMove(GameSession session) {
+        CompletableFuture<Move> reply = new CompletableFuture<>();
+        ChessGame position = session.startBotTurn(reply);
+        if (position == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        workers.execute(() -> {
+            try {
+                BotAgent bot = botFor(session.getStrength(), session.getBotTeam());
+                bot.setGame(position);
+                Move move = bot.getNextMove();
+                session.endBotTurn(move);
+                reply.complete(move);
+            } catch (Throwable e) {
+                // Also errors, so that the session always leaves the bot's turn and the reply
+                // always completes.
+                session.endBotTurn(null);
+                reply.completeExceptionally(e);
+            }
+        });
+        return reply;
+    }
+
+    // Returns the current worker's bot for the given strength and team.
+    private BotAgent botFor(Strength strength, TeamColor team) {
+        return bots.get().computeIfAbsent(strength, s -> new EnumMap<>(TeamColor.class))
+                .computeIfAbsent(team, t -> new BotAgent(new ChessGame(), t, strength));
+    }
+}
@@ -0,0 +1,110 @@
+package host;
+
+import bot.Strength;
+import functionality.ChessGame;
+import functionality.Move;
+import functionality.TeamColor;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A game between a player and the bot hosted by a GameHost. The session only holds the state of
+ * its game; the bot's searches are run by the host's workers.
+ */
+public class GameSession {
+    private final long id;
+    private final ChessGame game;
+    private final TeamColor botTeam;
+    private final Strength strength;
+    // Whether a bot search has been requested for this session and has not completed yet.
+    private boolean botThinking;
+    private CompletableFuture<Move> botReply = CompletableFuture.completedFuture(null);
+
+    GameSession(long id, ChessGame game, TeamColor botTeam, Strength strength) {
+        this.id = id;
+        this.game = game;
+        this.botTeam = botTeam;
+        this.strength = strength;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public TeamColor getBotTeam() {
+        return botTeam;
+    }
+
+    public Strength getStrength() {
+        return strength;
+    }
+
+    /**
+     * Returns the current position of the game.
+     * @return FEN of the position
+     */
+    public synchronized String getFen() {
+        return game.toFen();
+    }
+
+    /**
+     * Returns whether the game is over.
+     * @return true if the game has ended, and false otherwise
+     */
+    public synchronized boolean isOver() {
+        return game.isGameOver();
+    }
+
+    /**
+     * Returns the legal moves of the team to move.
+     * @return legal moves
+     */
+    public synchronized Set<Move> getPossibleMoves() {
+        return game.getPossibleMoves();
+    }
+
+    /**
+     * Returns the bot's latest reply, which completes once the bot has moved. Useful when the bot
+     * plays white and so moves first.
+     * @return future completed with the bot's move, or with null if it had no move to make
+     */
+    public synchronized CompletableFuture<Move> getBotReply() {
+        return botReply;
+    }
+
+    /**
+     * Returns whether it is the player's turn, which is when the player's moves are accepted.
+     * @return true if the player can move, and false otherwise
+     */
+    public synchronized boolean isPlayersTurn() {
+        return !botThinking && !game.isGameOver() && game.currentTurn() != botTeam;
+    }
+
+    // Play the player's move. Returns false if the move is not legal.
+    synchronized boolean playPlayerMove(Move move) {
+        if (!isPlayersTurn()) {
+            throw new IllegalStateException("Not the player's turn.");
+        }
+        return game.attemptMove(move) != ChessGame.MoveOutcome.FAILURE;
+    }
+
+    // Mark the bot as thinking, with the given future to complete with its move, and return a
+    // copy of the position for it to search, or null if the game is over or it is not the bot's turn.
+    synchronized ChessGame startBotTurn(CompletableFuture<Move> reply) {
+        if (botThinking || game.isGameOver() || game.currentTurn() != botTeam) {
+            return null;
+        }
+        botThinking = true;
+        botReply = reply;
+        return game.copy();
+    }
+
+    // Play the move found by the bot's search, or only end its turn if the search failed.
+    synchronized void endBotTurn(Move move) {
+        botThinking = false;
+        if (move != null && game.attemptMove(move) == ChessGame.MoveOutcome.FAILURE) {
+            throw new IllegalStateException("Illegal bot move " + move + " in " + game.toFen());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package host;
+
+import bot.Strength;
+import functionality.Move;
+import functionality.TeamColor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load test of a GameHost that plays many sessions at once against simulated players, who reply
+ * with a random legal move after a random think time, and reports the latency of the bot's moves:
+ * the time from the player's move to the bot's reply, including the time spent waiting for a
+ * worker.
+ *
+ * Usage: LoadTest [sessions,...] [moves per session] [max think time ms] [workers] [strength]
+ *
+ * By default runs 1000 and then 10000 sessions of 4 player moves each, with think times of up to
+ * 5 seconds, one worker per CPU and the BEGINNER strength. Sessions that fail are ended early, left
+ * out of the latencies and counted, and the test exits with status 1 if any failed.
+ */
+public class LoadTest {
+    private final GameHost host;
+    private final int moves;
+    private final long maxThinkMillis;
+    private final Strength strength;
+    private final ScheduledExecutorService players = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "load-test-players");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Latencies of the bot's replies in nanoseconds, guarded by this list's lock.
+    private final List<Long> latencies = new ArrayList<>();
+    private final AtomicInteger failures = new AtomicInteger();
+
+    /**
+     * Create a load test of the given host.
+     * @param host host to test
+     * @param moves number of moves each player makes
+     * @param maxThinkMillis longest time a player thinks before moving
+     * @param strength playing strength of the bots
+     */
+    public LoadTest(GameHost host, int moves, long maxThinkMillis, Strength strength) {
+        this.host = host;
+        this.moves = moves;
+        this.maxThinkMillis = maxThinkMillis;
+        this.strength = strength;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String[] sessionCounts = (args.length > 0 ? args[0] : "1000,10000").split(",");
+        int moves = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        long maxThinkMillis = args.length > 2 ? Long.parseLong(args[2]) : 5000;
+        int workers = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        Strength strength = args.length > 4 ? Strength.valueOf(args[4]) : Strength.BEGINNER;
+
+        int failures = 0;
+        for (String count : sessionCounts) {
+            GameHost host = new GameHost(workers);
+            LoadTest test = new LoadTest(host, moves, maxThinkMillis, strength);
+            long start = System.nanoTime();
+            long[] latencies = test.run(Integer.parseInt(count.trim()));
+            long millis = (System.nanoTime() - start) / 1000000;
+            System.out.printf("%s sessions, %d bot moves in %d ms: p50 %.1f ms, p99 %.1f ms, max %.1f ms, "
+                    + "%d failed sessions%n", count.trim(), latencies.length, millis, percentile(latencies, 50) / 1e6,
+                    percentile(latencies, 99) / 1e6, percentile(latencies, 100) / 1e6, test.getFailureCount());
+            failures += test.getFailureCount();
+            host.shutdown();
+        }
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Play the given number of sessions at once until every player has made their moves or their
+     * game is over.
+     * @param sessionCount number of sessions
+     * @throws InterruptedException if interrupted while waiting for the sessions to end
+     * @return sorted latencies of the bot's replies in nanoseconds
+     */
+    public long[] run(int sessionCount) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(sessionCount);
+        Random random = new Random();
+        for (int i = 0; i < sessionCount; i++) {
+            // Players play white, so that every session starts with the player thinking.
+            GameSession session = host.createSession(TeamColor.WHITE, strength);
+            schedulePlayerMove(session, moves, new Random(random.nextLong()), done);
+        }
+        done.await();
+        players.shutdownNow();
+        long[] sorted;
+        synchronized (latencies) {
+            sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        }
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Returns the number of sessions that ended early because a move failed.
+     * @return failed session count
+     */
+    public int getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * Returns the given percentile of sorted values.
+     * @param sorted values in ascending order
+     * @param percentile percentile between 0 and 100
+     * @return value at the percentile, or 0 if there are no values
+     */
+    public static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    // Make the player of a session move after thinking, and again after each of the bot's replies
+    // until the player has no moves left to make.
+    private void schedulePlayerMove(GameSession session, int movesLeft, Random random, CountDownLatch done) {
+        if (movesLeft == 0 || session.isOver()) {
+            host.closeSession(session.getId());
+            done.countDown();
+            return;
+        }
+        long think = maxThinkMillis > 0 ? (long) (random.nextDouble() * maxThinkMillis) : 0;
+        players.schedule(() -> {
+            long start = System.nanoTime();
+            CompletableFuture<Move> reply;
+            try {
+                reply = host.play(session, randomMove(session, random));
+            } catch (RuntimeException e) {
+                fail(session, done);
+                return;
+            }
+            reply.whenComplete((botMove, e) -> {
+                if (e != null) {
+                    fail(session, done);
+                    return;
+                }
+                synchronized (latencies) {
+                    latencies.add(System.nanoTime() - start);
+                }
+                schedulePlayerMove(session, movesLeft - 1, random, done);
+            });
+        }, think, TimeUnit.MILLISECONDS);
+    }
+
+    // End a session whose move failed.
+    private void fail(GameSession session, CountDownLatch done) {
+        failures.incrementAndGet();
+        host.closeSession(session.getId());
+        done.countDown();
+    }
+
+    private static Move randomMove(GameSession session, Random random) {
+        List<Move> moves = new ArrayList<>(session.getPossibleMoves());
+        // Sort first so that the choice only depends on the random generator.
+        moves.sort((a, b) -> Integer.compare(a.toCode(), b.toCode()));
+        return moves.get(random.nextInt(moves.size()));
+    }
+}
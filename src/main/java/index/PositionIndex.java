@@ -0,0 +1,235 @@
+package index;
+
+import functionality.ChessGame;
+import pgn.PgnGame;
+import pgn.PgnReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * Index of the games of a PGN database by the positions reached in them: maps the Zobrist key of
+ * a position (ChessGame.getKey) to the byte offsets of the games that reached it, which a
+ * PgnReader positioned at the offset reads back. Built by a PositionIndexBuilder.
+ *
+ * The file holds a header, then the entries sorted by key and then offset in delta-encoded blocks
+ * of BLOCK_SIZE entries, then a directory of the first key and position of each block. The file
+ * is memory-mapped, so that opening an index reads nothing but its header, and a lookup is a
+ * binary search of the directory followed by decoding the few blocks holding the key. Lookups are
+ * safe from several threads at once.
+ *
+ * Usage: PositionIndex index-file pgn-file [fen] lists the games that reached a position, by
+ * default the starting position.
+ */
+public class PositionIndex implements Closeable {
+    static final int MAGIC = 0x43504958;
+    static final int VERSION = 1;
+    // Magic number, version, entry count, block count and directory position.
+    static final int HEADER_SIZE = 32;
+    static final int BLOCK_SIZE = 128;
+    // Bytes of a block's directory entry: its first key and the position of its data.
+    private static final int DIRECTORY_ENTRY_SIZE = 16;
+    private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+    private final FileChannel channel;
+    private final long entryCount;
+    private final int blockCount;
+    private final MappedByteBuffer directory;
+    // The blocks are mapped in segments of at most 2 GB that hold whole blocks.
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private final List<Long> segmentStarts = new ArrayList<>();
+
+    private PositionIndex(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                throw new IOException("Not a position index.");
+            }
+        }
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a position index.");
+        }
+        this.entryCount = header.getLong();
+        long blocks = header.getLong();
+        long directoryOffset = header.getLong();
+        if (blocks * DIRECTORY_ENTRY_SIZE > MAX_SEGMENT_SIZE) {
+            throw new IOException("Position index too large.");
+        }
+        this.blockCount = (int) blocks;
+        this.directory = channel.map(FileChannel.MapMode.READ_ONLY, directoryOffset,
+                blocks * DIRECTORY_ENTRY_SIZE);
+
+        long start = HEADER_SIZE;
+        for (int i = 0; i < blockCount; i++) {
+            long blockEnd = i + 1 < blockCount ? blockPosition(i + 1) : directoryOffset;
+            if (blockEnd - start > MAX_SEGMENT_SIZE) {
+                mapSegment(start, blockPosition(i));
+                start = blockPosition(i);
+            }
+        }
+        mapSegment(start, directoryOffset);
+    }
+
+    /**
+     * Open an index file.
+     * @param file index file
+     * @throws IOException if the file cannot be read or is not a position index
+     * @return the index
+     */
+    public static PositionIndex open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new PositionIndex(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String fen = args.length > 2 ? args[2] : ChessGame.STARTING_FEN;
+        try (PositionIndex index = open(Paths.get(args[0]));
+             FileChannel pgn = FileChannel.open(Paths.get(args[1]), StandardOpenOption.READ)) {
+            long start = System.nanoTime();
+            long[] offsets = index.lookup(ChessGame.fromFen(fen));
+            long micros = (System.nanoTime() - start) / 1000;
+            System.out.printf("%d games in %d us%n", offsets.length, micros);
+            for (long offset : offsets) {
+                pgn.position(offset);
+                PgnGame game = new PgnReader(pgn).next();
+                System.out.printf("%d: %s - %s %s%n", offset, game.getTag("White"), game.getTag("Black"),
+                        game.getResult());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of entries of the index: the number of distinct positions of each game,
+     * summed over the games.
+     * @return entry count
+     */
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * Returns the games that reached the current position of a game.
+     * @param game game in the position to look up
+     * @return offsets of the games in ascending order
+     */
+    public long[] lookup(ChessGame game) {
+        return lookup(game.getKey());
+    }
+
+    /**
+     * Returns the games that reached the position with the given key.
+     * @param key Zobrist key of the position
+     * @return offsets of the games in ascending order
+     */
+    public long[] lookup(long key) {
+        // Entries with the key start in the last block whose first key is below it, if any.
+        int first = 0;
+        int low = 0;
+        int high = blockCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (firstKey(middle) < key) {
+                first = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        LongStream.Builder offsets = LongStream.builder();
+        for (int block = first; block < blockCount && firstKey(block) <= key; block++) {
+            long position = blockPosition(block);
+            int segment = segmentOf(position);
+            BlockReader reader = new BlockReader(segments.get(segment),
+                    (int) (position - segmentStarts.get(segment)));
+            int length = (int) reader.readVarint();
+            long entryKey = firstKey(block);
+            long offset = 0;
+            for (int i = 0; i < length; i++) {
+                long keyDelta = reader.readVarint();
+                if (keyDelta != 0) {
+                    entryKey += keyDelta;
+                    offset = 0;
+                }
+                offset += reader.readVarint();
+                if (entryKey == key) {
+                    offsets.add(offset);
+                } else if (entryKey > key) {
+                    return offsets.build().toArray();
+                }
+            }
+        }
+        return offsets.build().toArray();
+    }
+
+    /**
+     * Close the index file. The index must not be used afterwards.
+     * @throws IOException if it cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private long firstKey(int block) {
+        return directory.getLong(block * DIRECTORY_ENTRY_SIZE);
+    }
+
+    private long blockPosition(int block) {
+        return directory.getLong(block * DIRECTORY_ENTRY_SIZE + Long.BYTES);
+    }
+
+    private void mapSegment(long start, long end) throws IOException {
+        segments.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+        segmentStarts.add(start);
+    }
+
+    // Returns the index of the segment holding the given file position.
+    private int segmentOf(long position) {
+        int segment = segmentStarts.size() - 1;
+        while (segmentStarts.get(segment) > position) {
+            segment--;
+        }
+        return segment;
+    }
+
+    // Decoder of the varints of a block, reading the mapped buffer without changing its position
+    // so that several threads can read it at once.
+    private static class BlockReader {
+        private final ByteBuffer buffer;
+        private int index;
+
+        BlockReader(ByteBuffer buffer, int index) {
+            this.buffer = buffer;
+            this.index = index;
+        }
+
+        long readVarint() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(index++);
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
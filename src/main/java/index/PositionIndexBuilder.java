@@ -0,0 +1,279 @@
+package index;
+
+import pgn.PgnReader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Builder of a PositionIndex from a PGN file, which streams the file rather than loading it.
+ *
+ * The games are replayed on several threads (see PgnReader.forEachGame). Each thread collects the
+ * keys of the positions it sees in a buffer of fixed size, which is sorted and written to a
+ * temporary run file whenever it fills up, and the sorted runs are then merged into the index.
+ * Memory use is therefore bounded by the buffer size times the number of threads, whatever the
+ * size of the database.
+ *
+ * Usage: PositionIndexBuilder pgn-file index-file [threads]
+ */
+public class PositionIndexBuilder {
+    // Entries buffered per thread before they are written to a run: 32 MB.
+    private static final int DEFAULT_RUN_ENTRIES = 1 << 21;
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final int threads;
+    private final int runEntries;
+    private final Path tempDir;
+    private final AtomicLong errorCount = new AtomicLong();
+
+    /**
+     * Create a builder using one thread per available processor and the default temporary
+     * directory.
+     */
+    public PositionIndexBuilder() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_RUN_ENTRIES,
+                Paths.get(System.getProperty("java.io.tmpdir")));
+    }
+
+    /**
+     * Create a builder.
+     * @param threads number of threads replaying games
+     * @param runEntries number of entries each thread buffers before writing them to a run file
+     * @param tempDir directory of the run files
+     */
+    public PositionIndexBuilder(int threads, int runEntries, Path tempDir) {
+        this.threads = threads;
+        this.runEntries = runEntries;
+        this.tempDir = tempDir;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        PositionIndexBuilder builder = new PositionIndexBuilder(threads, DEFAULT_RUN_ENTRIES,
+                Paths.get(System.getProperty("java.io.tmpdir")));
+        long start = System.nanoTime();
+        long games = builder.build(Paths.get(args[0]), Paths.get(args[1]));
+        long millis = (System.nanoTime() - start) / 1000000;
+        try (PositionIndex index = PositionIndex.open(Paths.get(args[1]))) {
+            System.out.printf("%d games (%d with illegal moves), %d entries in %d ms%n", games,
+                    builder.getErrorCount(), index.getEntryCount(), millis);
+        }
+    }
+
+    /**
+     * Index the positions of every game of a PGN file. The positions of a game with an illegal
+     * move are indexed up to that move.
+     * @param pgn PGN file
+     * @param index index file to write
+     * @throws IOException if a file cannot be read or written
+     * @throws InterruptedException if interrupted while replaying the games
+     * @return number of games read
+     */
+    public long build(Path pgn, Path index) throws IOException, InterruptedException {
+        errorCount.set(0);
+        Queue<Run> runs = new ConcurrentLinkedQueue<>();
+        List<Path> runFiles = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<Run> threadRun = ThreadLocal.withInitial(() -> {
+            Run run = new Run(runEntries);
+            runs.add(run);
+            return run;
+        });
+        try {
+            long games = PgnReader.forEachGame(pgn, threads, game -> {
+                Run run = threadRun.get();
+                try {
+                    game.replay(position -> {
+                        if (run.size == runEntries) {
+                            runFiles.add(spill(run));
+                        }
+                        run.add(position.getKey(), game.getOffset());
+                    });
+                } catch (IllegalArgumentException e) {
+                    errorCount.incrementAndGet();
+                }
+            });
+            // The workers have ended, so their remaining entries can be written from this thread.
+            for (Run run : runs) {
+                if (run.size > 0) {
+                    runFiles.add(spill(run));
+                }
+            }
+            merge(runFiles, index);
+            return games;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            for (Path file : runFiles) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of games of the last build that had an illegal move.
+     * @return error count
+     */
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    // Sort the entries of a run, write them to a new run file and empty the run.
+    private Path spill(Run run) {
+        sort(run.keys, run.offsets, 0, run.size);
+        try {
+            Path file = Files.createTempFile(tempDir, "positions", ".run");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                for (int i = 0; i < run.size; i++) {
+                    out.writeLong(run.keys[i]);
+                    out.writeLong(run.offsets[i]);
+                }
+            }
+            run.size = 0;
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Merge sorted run files into an index, dropping duplicate entries, which come from a game
+    // reaching a position more than once.
+    private static void merge(List<Path> runFiles, Path index) throws IOException {
+        PriorityQueue<RunReader> readers = new PriorityQueue<>(Math.max(1, runFiles.size()),
+                (a, b) -> compare(a.key, a.offset, b.key, b.offset));
+        try (PositionIndexWriter writer = new PositionIndexWriter(index)) {
+            for (Path file : runFiles) {
+                RunReader reader = new RunReader(file);
+                if (reader.next()) {
+                    readers.add(reader);
+                } else {
+                    reader.in.close();
+                }
+            }
+            boolean first = true;
+            long lastKey = 0;
+            long lastOffset = 0;
+            while (!readers.isEmpty()) {
+                RunReader reader = readers.poll();
+                if (first || reader.key != lastKey || reader.offset != lastOffset) {
+                    writer.add(reader.key, reader.offset);
+                    lastKey = reader.key;
+                    lastOffset = reader.offset;
+                    first = false;
+                }
+                if (reader.next()) {
+                    readers.add(reader);
+                } else {
+                    reader.in.close();
+                }
+            }
+        } finally {
+            for (RunReader reader : readers) {
+                reader.in.close();
+            }
+        }
+    }
+
+    // Sort the entries [from, to) by key and then offset, with a quicksort that only recurses on
+    // the smaller part.
+    static void sort(long[] keys, long[] offsets, int from, int to) {
+        while (to - from > INSERTION_SORT_THRESHOLD) {
+            int middle = (from + to) >>> 1;
+            long pivotKey = keys[middle];
+            long pivotOffset = offsets[middle];
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (compare(keys[i], offsets[i], pivotKey, pivotOffset) < 0) {
+                    i++;
+                }
+                while (compare(keys[j], offsets[j], pivotKey, pivotOffset) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(keys, offsets, i++, j--);
+                }
+            }
+            if (j + 1 - from < to - i) {
+                sort(keys, offsets, from, j + 1);
+                from = i;
+            } else {
+                sort(keys, offsets, i, to);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && compare(keys[j - 1], offsets[j - 1], keys[j], offsets[j]) > 0; j--) {
+                swap(keys, offsets, j - 1, j);
+            }
+        }
+    }
+
+    private static int compare(long key1, long offset1, long key2, long offset2) {
+        int result = Long.compare(key1, key2);
+        return result != 0 ? result : Long.compare(offset1, offset2);
+    }
+
+    private static void swap(long[] keys, long[] offsets, int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        long offset = offsets[i];
+        offsets[i] = offsets[j];
+        offsets[j] = offset;
+    }
+
+    // Entries collected by one thread and not yet written to a run file.
+    private static class Run {
+        final long[] keys;
+        final long[] offsets;
+        int size;
+
+        Run(int capacity) {
+            this.keys = new long[capacity];
+            this.offsets = new long[capacity];
+        }
+
+        void add(long key, long offset) {
+            keys[size] = key;
+            offsets[size] = offset;
+            size++;
+        }
+    }
+
+    // Reader of the entries of a run file, holding the entry read last.
+    private static class RunReader {
+        final DataInputStream in;
+        long key;
+        long offset;
+
+        RunReader(Path file) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        }
+
+        // Read the next entry, returning false at the end of the file.
+        boolean next() throws IOException {
+            try {
+                key = in.readLong();
+            } catch (EOFException e) {
+                return false;
+            }
+            offset = in.readLong();
+            return true;
+        }
+    }
+}
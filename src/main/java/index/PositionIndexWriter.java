@@ -0,0 +1,133 @@
+package index;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Writer of a position index file from entries added in ascending order. See PositionIndex for the
+ * layout of the file.
+ */
+class PositionIndexWriter implements Closeable {
+    // Largest encoded block: its entry count and, per entry, two varints of at most 10 bytes.
+    private static final int MAX_BLOCK_BYTES = 5 + PositionIndex.BLOCK_SIZE * 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocate(1 << 16);
+    private final long[] blockKeys = new long[PositionIndex.BLOCK_SIZE];
+    private final long[] blockOffsets = new long[PositionIndex.BLOCK_SIZE];
+    private int blockLength;
+    // First key and file position of each block written, in pairs.
+    private long[] directory = new long[256];
+    private int blockCount;
+    // File position the next byte written goes to.
+    private long position = PositionIndex.HEADER_SIZE;
+    private long entryCount;
+    private long lastKey;
+    private long lastOffset;
+
+    PositionIndexWriter(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        channel.position(PositionIndex.HEADER_SIZE);
+    }
+
+    // Add an entry, which must come after the previous one in the order of keys and then offsets.
+    void add(long key, long offset) throws IOException {
+        if (entryCount > 0 && (key < lastKey || key == lastKey && offset <= lastOffset)) {
+            throw new IllegalArgumentException("Entries must be added in ascending order without duplicates.");
+        }
+        blockKeys[blockLength] = key;
+        blockOffsets[blockLength] = offset;
+        lastKey = key;
+        lastOffset = offset;
+        entryCount++;
+        if (++blockLength == PositionIndex.BLOCK_SIZE) {
+            writeBlock();
+        }
+    }
+
+    long getEntryCount() {
+        return entryCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (blockLength > 0) {
+                writeBlock();
+            }
+            long directoryOffset = position;
+            for (int i = 0; i < blockCount * 2; i++) {
+                if (out.remaining() < Long.BYTES) {
+                    flush();
+                }
+                out.putLong(directory[i]);
+            }
+            flush();
+
+            ByteBuffer header = ByteBuffer.allocate(PositionIndex.HEADER_SIZE);
+            header.putInt(PositionIndex.MAGIC).putInt(PositionIndex.VERSION).putLong(entryCount)
+                    .putLong(blockCount).putLong(directoryOffset).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Encode the pending entries as a block: their number, then for each entry the difference
+    // from the previous key, and the difference from the previous offset if the key is the same
+    // or else the offset itself. The block's first key is kept in the directory.
+    private void writeBlock() throws IOException {
+        if (blockCount * 2 == directory.length) {
+            directory = Arrays.copyOf(directory, directory.length * 2);
+        }
+        directory[blockCount * 2] = blockKeys[0];
+        directory[blockCount * 2 + 1] = position;
+        blockCount++;
+
+        if (out.remaining() < MAX_BLOCK_BYTES) {
+            flush();
+        }
+        int start = out.position();
+        putVarint(blockLength);
+        long previousKey = blockKeys[0];
+        long previousOffset = 0;
+        for (int i = 0; i < blockLength; i++) {
+            long keyDelta = blockKeys[i] - previousKey;
+            if (keyDelta != 0) {
+                previousOffset = 0;
+            }
+            putVarint(keyDelta);
+            putVarint(blockOffsets[i] - previousOffset);
+            previousKey = blockKeys[i];
+            previousOffset = blockOffsets[i];
+        }
+        position += out.position() - start;
+        blockLength = 0;
+    }
+
+    // Write a value as an unsigned varint: seven bits per byte, low bits first, with the high bit
+    // set on every byte but the last.
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    private void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+}
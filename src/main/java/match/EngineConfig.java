@@ -0,0 +1,124 @@
+package match;
+
+import bot.BotAgent;
+import bot.NaiveUtilityEvaluator;
+import bot.PieceSquareEvaluator;
+import bot.ScoreEvaluator;
+import bot.Strength;
+import functionality.ChessGame;
+import functionality.Move;
+import functionality.TeamColor;
+
+/**
+ * Settings of one of the engines of a match: the evaluator it uses and the limits of its searches.
+ *
+ * Settings are given as comma-separated key=value pairs, for example
+ * "name=pst,eval=piecesquare,strength=ADVANCED,nodes=20000". The keys are name, eval (naive or
+ * piecesquare), strength (a Strength constant), depth (max depth, 0 to choose it automatically),
+ * nodes (node limit per move) and time (time limit per move in milliseconds).
+ */
+public class EngineConfig {
+    private static final int UNLIMITED_DEPTH = 64;
+
+    private String name = "engine";
+    private String eval = "naive";
+    private Strength strength = Strength.DEFAULT;
+    private int depth;
+    private long nodeLimit;
+    private long timeLimitMillis;
+
+    /**
+     * Create the settings described by the given key=value pairs.
+     * @param spec comma-separated settings
+     * @throws IllegalArgumentException if a setting is unknown or has an invalid value
+     * @return engine settings
+     */
+    public static EngineConfig parse(String spec) {
+        EngineConfig config = new EngineConfig();
+        for (String pair : spec.split(",")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            int split = pair.indexOf('=');
+            if (split < 0) {
+                throw new IllegalArgumentException("Invalid engine setting: " + pair);
+            }
+            String key = pair.substring(0, split).trim();
+            String value = pair.substring(split + 1).trim();
+            try {
+                switch (key) {
+                    case "name":
+                        config.name = value;
+                        break;
+                    case "eval":
+                        if (!value.equals("naive") && !value.equals("piecesquare")) {
+                            throw new IllegalArgumentException("Unknown evaluator: " + value);
+                        }
+                        config.eval = value;
+                        break;
+                    case "strength":
+                        config.strength = Strength.valueOf(value.toUpperCase());
+                        break;
+                    case "depth":
+                        config.depth = Integer.parseInt(value);
+                        break;
+                    case "nodes":
+                        config.nodeLimit = Long.parseLong(value);
+                        break;
+                    case "time":
+                        config.timeLimitMillis = Long.parseLong(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown engine setting: " + key);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value of " + key + ": " + value);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * Returns the name of the engine, as written in the PGN of its games.
+     * @return engine name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Create a bot playing with these settings.
+     * @param game chess game for the bot to play in
+     * @param team the bot's team
+     * @return new bot, which must be shut down after use
+     */
+    public BotAgent createBot(ChessGame game, TeamColor team) {
+        BotAgent bot = new BotAgent(game, team, strength, createEvaluator());
+        // Searches limited by nodes or time go as deep as the limit allows.
+        bot.setMaxDepth(depth > 0 ? depth : nodeLimit > 0 || timeLimitMillis > 0 ? UNLIMITED_DEPTH : 0);
+        return bot;
+    }
+
+    /**
+     * Search for the move of a bot created by 'createBot' within the limits of these settings.
+     * @param bot bot to move
+     * @return best move found
+     */
+    public Move nextMove(BotAgent bot) {
+        if (nodeLimit == 0 && timeLimitMillis == 0) {
+            return bot.getNextMove();
+        }
+        return bot.getNextMoveAsync(timeLimitMillis, nodeLimit).join();
+    }
+
+    // Each bot gets its own evaluator, since evaluators keep tables that are not shared between
+    // threads.
+    private ScoreEvaluator<ChessGame> createEvaluator() {
+        return eval.equals("piecesquare") ? new PieceSquareEvaluator() : new NaiveUtilityEvaluator();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
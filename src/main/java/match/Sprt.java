@@ -0,0 +1,167 @@
+package match;
+
+/**
+ * Sequential probability ratio test of whether one engine is stronger than another, from the
+ * results of games between them. The test weighs the hypothesis that the first engine is elo1
+ * stronger against the hypothesis that it is only elo0 stronger, and stops as soon as the results
+ * favour one of them enough, with false positive rate alpha and false negative rate beta.
+ *
+ * The log-likelihood ratio uses the normal approximation of the score per game, as is usual for
+ * engine testing.
+ */
+public class Sprt {
+    /**
+     * Enum for the states of the test.
+     */
+    public enum Status {
+        CONTINUE, ACCEPT_H0, ACCEPT_H1
+    }
+
+    private final double elo0;
+    private final double elo1;
+    private final double lowerBound;
+    private final double upperBound;
+    private int wins;
+    private int draws;
+    private int losses;
+
+    /**
+     * Create a test of the hypotheses that the first engine is elo0 and elo1 stronger.
+     * @param elo0 Elo difference of the null hypothesis
+     * @param elo1 Elo difference of the alternative hypothesis, greater than elo0
+     * @param alpha probability of accepting the alternative hypothesis when the null one holds
+     * @param beta probability of accepting the null hypothesis when the alternative one holds
+     * @throws IllegalArgumentException if elo1 is not greater than elo0 or a probability is not
+     *         between 0 and 1
+     */
+    public Sprt(double elo0, double elo1, double alpha, double beta) {
+        if (elo1 <= elo0 || alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1) {
+            throw new IllegalArgumentException("Invalid SPRT parameters.");
+        }
+        this.elo0 = elo0;
+        this.elo1 = elo1;
+        this.lowerBound = Math.log(beta / (1 - alpha));
+        this.upperBound = Math.log((1 - beta) / alpha);
+    }
+
+    /**
+     * Add the result of a game, from the point of view of the first engine.
+     * @param score 1 for a win, 0.5 for a draw and 0 for a loss
+     */
+    public void addResult(double score) {
+        if (score > 0.5) {
+            wins++;
+        } else if (score < 0.5) {
+            losses++;
+        } else {
+            draws++;
+        }
+    }
+
+    /**
+     * Returns the log-likelihood ratio of the alternative hypothesis to the null hypothesis given
+     * the results so far.
+     * @return log-likelihood ratio, 0 until both engines have scored differently in some game
+     */
+    public double getLlr() {
+        int games = getGames();
+        if (games == 0) {
+            return 0;
+        }
+        double score = getScore();
+        double variance = (wins * Math.pow(1 - score, 2) + draws * Math.pow(0.5 - score, 2)
+                + losses * Math.pow(score, 2)) / games;
+        if (variance == 0) {
+            return 0;
+        }
+        double score0 = expectedScore(elo0);
+        double score1 = expectedScore(elo1);
+        return games * (score1 - score0) * (2 * score - score0 - score1) / (2 * variance);
+    }
+
+    /**
+     * Returns the state of the test given the results so far.
+     * @return ACCEPT_H1 if the first engine is elo1 stronger, ACCEPT_H0 if it is only elo0
+     *         stronger, and CONTINUE if more games are needed to tell
+     */
+    public Status getStatus() {
+        double llr = getLlr();
+        if (llr >= upperBound) {
+            return Status.ACCEPT_H1;
+        } else if (llr <= lowerBound) {
+            return Status.ACCEPT_H0;
+        }
+        return Status.CONTINUE;
+    }
+
+    /**
+     * Returns the log-likelihood ratio at or below which the null hypothesis is accepted.
+     * @return lower bound
+     */
+    public double getLowerBound() {
+        return lowerBound;
+    }
+
+    /**
+     * Returns the log-likelihood ratio at or above which the alternative hypothesis is accepted.
+     * @return upper bound
+     */
+    public double getUpperBound() {
+        return upperBound;
+    }
+
+    /**
+     * Returns the average score per game of the first engine.
+     * @return score between 0 and 1, or 0.5 if no games have been played
+     */
+    public double getScore() {
+        int games = getGames();
+        return games == 0 ? 0.5 : (wins + draws / 2.0) / games;
+    }
+
+    /**
+     * Returns the Elo difference between the engines estimated from the results so far.
+     * @return estimated Elo difference, positive if the first engine is stronger
+     */
+    public double getElo() {
+        double score = Math.max(1e-6, Math.min(1 - 1e-6, getScore()));
+        return -400 * Math.log10(1 / score - 1);
+    }
+
+    /**
+     * Returns the number of games played.
+     * @return number of games
+     */
+    public int getGames() {
+        return wins + draws + losses;
+    }
+
+    /**
+     * Returns the number of games won by the first engine.
+     * @return number of wins
+     */
+    public int getWins() {
+        return wins;
+    }
+
+    /**
+     * Returns the number of drawn games.
+     * @return number of draws
+     */
+    public int getDraws() {
+        return draws;
+    }
+
+    /**
+     * Returns the number of games lost by the first engine.
+     * @return number of losses
+     */
+    public int getLosses() {
+        return losses;
+    }
+
+    // Returns the expected score of an engine that is the given number of Elo stronger.
+    private static double expectedScore(double elo) {
+        return 1 / (1 + Math.pow(10, -elo / 400));
+    }
+}
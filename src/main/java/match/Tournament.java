@@ -0,0 +1,283 @@
+package match;
+
+import bot.BotAgent;
+import functionality.ChessGame;
+import functionality.Move;
+import functionality.TeamColor;
+import pgn.PgnWriter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless runner of matches between two engines that plays many games at once, one per thread,
+ * and stops as soon as a sequential probability ratio test decides which engine is stronger.
+ *
+ * Each opening position is played twice, once with each engine as white. Games end by checkmate,
+ * stalemate or insufficient material as reported by ChessGame.MoveOutcome, and are drawn by the
+ * fifty move rule, threefold repetition or reaching the maximum number of plies.
+ *
+ * Usage: Tournament [-first settings] [-second settings] [-openings file] [-games n] [-threads n]
+ *                   [-pgn file] [-elo0 x] [-elo1 x] [-alpha x] [-beta x] [-maxplies n]
+ *
+ * The settings of each engine are described by EngineConfig. The openings file has one FEN or
+ * EPD position per line, blank lines and lines starting with '#' being ignored.
+ */
+public class Tournament {
+    private static final String DEFAULT_SETTINGS = "strength=NOVICE";
+    private static final int DEFAULT_GAMES = 1000;
+    private static final int DEFAULT_MAX_PLIES = 400;
+
+    private final EngineConfig first;
+    private final EngineConfig second;
+    private final List<String> openings;
+    private final Sprt sprt;
+    private final PgnWriter pgn;
+    private int maxPlies = DEFAULT_MAX_PLIES;
+    private volatile boolean decided;
+    private final String date = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy.MM.dd"));
+
+    /**
+     * Result of a game from white's point of view, with the reason it ended.
+     */
+    public static class GameResult {
+        public final String result;
+        public final String termination;
+        public final List<Move> moves;
+
+        public GameResult(String result, String termination, List<Move> moves) {
+            this.result = result;
+            this.termination = termination;
+            this.moves = moves;
+        }
+
+        /**
+         * Returns the score of white in this game.
+         * @return 1 for a win, 0.5 for a draw and 0 for a loss
+         */
+        public double whiteScore() {
+            return result.equals("1-0") ? 1 : result.equals("0-1") ? 0 : 0.5;
+        }
+    }
+
+    /**
+     * Create a match between two engines.
+     * @param first engine whose strength is tested
+     * @param second engine it is tested against
+     * @param openings FEN of the positions the games start from
+     * @param sprt test deciding when the match ends
+     * @param pgn writer of the games played, or null to not record them
+     */
+    public Tournament(EngineConfig first, EngineConfig second, List<String> openings, Sprt sprt, PgnWriter pgn) {
+        if (openings.isEmpty()) {
+            throw new IllegalArgumentException("No opening positions.");
+        }
+        this.first = first;
+        this.second = second;
+        this.openings = openings;
+        this.sprt = sprt;
+        this.pgn = pgn;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i], args[i + 1]);
+        }
+        EngineConfig first = EngineConfig.parse("name=first," + options.getOrDefault("-first", DEFAULT_SETTINGS));
+        EngineConfig second = EngineConfig.parse("name=second," + options.getOrDefault("-second", DEFAULT_SETTINGS));
+        List<String> openings = options.containsKey("-openings")
+                ? readOpenings(Paths.get(options.get("-openings"))) : List.of(ChessGame.STARTING_FEN);
+        Sprt sprt = new Sprt(Double.parseDouble(options.getOrDefault("-elo0", "0")),
+                Double.parseDouble(options.getOrDefault("-elo1", "5")),
+                Double.parseDouble(options.getOrDefault("-alpha", "0.05")),
+                Double.parseDouble(options.getOrDefault("-beta", "0.05")));
+        int games = Integer.parseInt(options.getOrDefault("-games", String.valueOf(DEFAULT_GAMES)));
+        int threads = Integer.parseInt(options.getOrDefault("-threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        PgnWriter pgn = options.containsKey("-pgn") ? new PgnWriter(new OutputStreamWriter(
+                Files.newOutputStream(Paths.get(options.get("-pgn"))), StandardCharsets.UTF_8)) : null;
+        Tournament tournament = new Tournament(first, second, openings, sprt, pgn);
+        tournament.setMaxPlies(Integer.parseInt(options.getOrDefault("-maxplies",
+                String.valueOf(DEFAULT_MAX_PLIES))));
+        try {
+            tournament.run(games, threads);
+        } finally {
+            if (pgn != null) {
+                pgn.close();
+            }
+        }
+        System.out.println("Result: " + sprt.getStatus());
+    }
+
+    /**
+     * Read opening positions from a file with one FEN or EPD position per line.
+     * @param file openings file
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if a line is not a valid position
+     * @return FEN of the positions
+     */
+    public static List<String> readOpenings(Path file) throws IOException {
+        List<String> openings = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                // EPD positions are the first four fields of FEN followed by operations.
+                String[] fields = line.split("\\s+");
+                String fen = fields.length > 4 && !isCounter(fields[4])
+                        ? String.join(" ", fields[0], fields[1], fields[2], fields[3]) : line;
+                openings.add(ChessGame.fromFen(fen).toFen());
+            }
+        }
+        return openings;
+    }
+
+    /**
+     * Set the number of plies after which a game is adjudicated a draw.
+     * @param maxPlies maximum length of a game
+     */
+    public void setMaxPlies(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Play games on the given number of threads until the test decides or the given number of
+     * games has been played, printing the standings after each game.
+     * @param games maximum number of games
+     * @param threads number of games played at once
+     * @throws InterruptedException if interrupted while waiting for the games to end
+     * @return the test, holding the results of the games
+     */
+    public Sprt run(int games, int threads) throws InterruptedException {
+        AtomicInteger nextGame = new AtomicInteger();
+        List<Callable<Void>> workers = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.add(() -> {
+                int game;
+                while (!decided && (game = nextGame.getAndIncrement()) < games) {
+                    playAndRecord(game);
+                }
+                return null;
+            });
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<Void> worker : pool.invokeAll(workers)) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof IOException) {
+                throw new UncheckedIOException((IOException) e.getCause());
+            }
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        return sprt;
+    }
+
+    /**
+     * Play a game between two engines from the given position until it ends.
+     * @param fen position the game starts from
+     * @param white settings of the engine playing white
+     * @param black settings of the engine playing black
+     * @return result of the game
+     */
+    public GameResult playGame(String fen, EngineConfig white, EngineConfig black) {
+        ChessGame game = ChessGame.fromFen(fen);
+        BotAgent whiteBot = white.createBot(game, TeamColor.WHITE);
+        BotAgent blackBot = black.createBot(game, TeamColor.BLACK);
+        List<Move> moves = new ArrayList<>();
+        Map<Long, Integer> repetitions = new HashMap<>();
+        repetitions.put(game.getKey(), 1);
+        try {
+            while (!game.isGameOver()) {
+                if (game.getHalfmoveClock() >= 100) {
+                    return new GameResult("1/2-1/2", "fifty move rule", moves);
+                }
+                if (moves.size() >= maxPlies) {
+                    return new GameResult("1/2-1/2", "adjudication", moves);
+                }
+                TeamColor mover = game.currentTurn();
+                Move move = mover == TeamColor.WHITE ? white.nextMove(whiteBot) : black.nextMove(blackBot);
+                ChessGame.MoveOutcome outcome = game.attemptMove(move);
+                if (outcome == ChessGame.MoveOutcome.FAILURE) {
+                    throw new IllegalStateException("Illegal move " + move + " in " + game.toFen());
+                }
+                moves.add(move);
+                if (outcome == ChessGame.MoveOutcome.CHECKMATE) {
+                    return new GameResult(mover == TeamColor.WHITE ? "1-0" : "0-1", "normal", moves);
+                }
+                if (repetitions.merge(game.getKey(), 1, Integer::sum) >= 3) {
+                    return new GameResult("1/2-1/2", "threefold repetition", moves);
+                }
+            }
+            // The game ended in stalemate or with insufficient material.
+            return new GameResult("1/2-1/2", "normal", moves);
+        } finally {
+            whiteBot.shutdown();
+            blackBot.shutdown();
+        }
+    }
+
+    // Play the game with the given number and record its result. Even games have the first engine
+    // playing white and odd ones have it playing black, from the same opening.
+    private void playAndRecord(int number) throws IOException {
+        String fen = openings.get((number / 2) % openings.size());
+        boolean firstIsWhite = number % 2 == 0;
+        EngineConfig white = firstIsWhite ? first : second;
+        EngineConfig black = firstIsWhite ? second : first;
+        GameResult result = playGame(fen, white, black);
+
+        if (pgn != null) {
+            Map<String, String> tags = new LinkedHashMap<>();
+            tags.put("Event", "Self-play match");
+            tags.put("Date", date);
+            tags.put("Round", String.valueOf(number + 1));
+            tags.put("White", white.getName());
+            tags.put("Black", black.getName());
+            tags.put("Termination", result.termination);
+            pgn.writeGame(tags, fen, result.moves, result.result);
+        }
+        synchronized (sprt) {
+            if (decided) {
+                return;
+            }
+            sprt.addResult(firstIsWhite ? result.whiteScore() : 1 - result.whiteScore());
+            decided = sprt.getStatus() != Sprt.Status.CONTINUE;
+            System.out.printf("Games %d: +%d -%d =%d  Elo %.1f  LLR %.2f [%.2f, %.2f]%n", sprt.getGames(),
+                    sprt.getWins(), sprt.getLosses(), sprt.getDraws(), sprt.getElo(), sprt.getLlr(),
+                    sprt.getLowerBound(), sprt.getUpperBound());
+        }
+    }
+
+    private static boolean isCounter(String field) {
+        return !field.isEmpty() && field.chars().allMatch(Character::isDigit);
+    }
+}
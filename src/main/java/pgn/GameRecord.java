@@ -0,0 +1,54 @@
+package pgn;
+
+import functionality.ChessGame;
+import functionality.Move;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Record of the moves played in a game, taken from ChessGame.getLastMove after each move, so that
+ * the game can be written with a PgnWriter once it is over.
+ */
+public class GameRecord {
+    private final String startFen;
+    private final List<Move> moves = new ArrayList<>();
+
+    /**
+     * Start recording a game from its current position.
+     * @param game game to record
+     */
+    public GameRecord(ChessGame game) {
+        this.startFen = game.toFen();
+    }
+
+    /**
+     * Record the move just played in a game, including the piece chosen if it was a promotion.
+     * @param game game the move was played in
+     */
+    public void recordLastMove(ChessGame game) {
+        moves.add(game.getLastMove());
+    }
+
+    public String getStartFen() {
+        return startFen;
+    }
+
+    public List<Move> getMoves() {
+        return Collections.unmodifiableList(moves);
+    }
+
+    /**
+     * Write the recorded game.
+     * @param writer writer of the game
+     * @param tags tag pairs of the game
+     * @param result result of the game: "1-0", "0-1", "1/2-1/2" or "*"
+     * @throws IOException if the game cannot be written
+     */
+    public void write(PgnWriter writer, Map<String, String> tags, String result) throws IOException {
+        writer.writeGame(tags, startFen, moves, result);
+    }
+}
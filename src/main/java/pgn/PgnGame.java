@@ -0,0 +1,124 @@
+package pgn;
+
+import functionality.ChessGame;
+import functionality.Move;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A game read by a PgnReader: its tags, its moves as written in SAN and its result. The moves are
+ * only resolved against the legal moves of the game when they are replayed, which can be done on
+ * another thread than the one reading.
+ */
+public class PgnGame {
+    private final long offset;
+    private final Map<String, String> tags;
+    private final List<String> sanMoves;
+    private final String result;
+
+    /**
+     * Create a game.
+     * @param offset position of the game's first byte in its source
+     * @param tags tag pairs of the game, in the order they were read
+     * @param sanMoves moves of the game in SAN
+     * @param result result of the game, or "*" if unknown
+     */
+    public PgnGame(long offset, Map<String, String> tags, List<String> sanMoves, String result) {
+        this.offset = offset;
+        this.tags = tags;
+        this.sanMoves = sanMoves;
+        this.result = result;
+    }
+
+    /**
+     * Returns the position of the game's first byte in its source, so that the game can be found
+     * again without reading the games before it.
+     * @return byte offset
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Returns the value of a tag.
+     * @param name tag name
+     * @return tag value, or null if the game does not have the tag
+     */
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    public Map<String, String> getTags() {
+        return Collections.unmodifiableMap(tags);
+    }
+
+    public List<String> getSanMoves() {
+        return Collections.unmodifiableList(sanMoves);
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    /**
+     * Returns the position the game starts from: that of its FEN tag, or the standard starting
+     * position.
+     * @return FEN of the starting position
+     */
+    public String getStartFen() {
+        String fen = tags.get("FEN");
+        return fen == null ? ChessGame.STARTING_FEN : fen;
+    }
+
+    /**
+     * Play the moves of the game from its starting position, showing the position before the
+     * first move and after each move to the given visitor. The visitor must not change the game.
+     * @param visitor visitor of the positions, or null
+     * @throws IllegalArgumentException if a move is not a legal move in SAN
+     * @return game after the last move
+     */
+    public ChessGame replay(Consumer<ChessGame> visitor) {
+        return replay(visitor, null);
+    }
+
+    /**
+     * Returns the moves of the game resolved against its legal moves.
+     * @throws IllegalArgumentException if a move is not a legal move in SAN
+     * @return moves of the game
+     */
+    public List<Move> getMoves() {
+        List<Move> moves = new ArrayList<>(sanMoves.size());
+        replay(null, moves);
+        return moves;
+    }
+
+    // Replay the game, showing each position to the visitor and adding each move to the list if
+    // they are not null.
+    private ChessGame replay(Consumer<ChessGame> visitor, List<Move> moves) {
+        ChessGame game = ChessGame.fromFen(getStartFen());
+        if (visitor != null) {
+            visitor.accept(game);
+        }
+        for (int i = 0; i < sanMoves.size(); i++) {
+            Move move;
+            try {
+                move = San.fromSan(game, sanMoves.get(i));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(e.getMessage() + " at ply " + (i + 1) + " of game at offset "
+                        + offset);
+            }
+            game.attemptMove(move);
+            if (moves != null) {
+                moves.add(move);
+            }
+            if (visitor != null) {
+                visitor.accept(game);
+            }
+        }
+        return game;
+    }
+}
@@ -0,0 +1,337 @@
+package pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader of games in Portable Game Notation. Games are read one at a time through a
+ * fixed-size buffer, so that databases of any size can be read without holding more than one game
+ * in memory. Comments, variations, numeric annotation glyphs and escaped lines are skipped.
+ *
+ * The reader only splits the input into games, tags and SAN moves, which is cheap; resolving the
+ * moves against the legal moves of the game (PgnGame.replay) is the expensive part, and
+ * 'forEachGame' does it on several threads while one thread reads.
+ *
+ * Usage: PgnReader file [threads] replays every game of a file and reports the time taken.
+ */
+public class PgnReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Games queued for the workers of 'forEachGame', per worker.
+    private static final int QUEUED_PER_THREAD = 64;
+    private static final PgnGame END = new PgnGame(-1, Map.of(), List.of(), "*");
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    // Position in the input of the next byte to read.
+    private long position;
+    private byte[] token = new byte[64];
+
+    /**
+     * Create a reader of the games of the given channel.
+     * @param channel source of the games
+     */
+    public PgnReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.limit(0);
+    }
+
+    /**
+     * Create a reader of the games of a file.
+     * @param file PGN file
+     * @throws IOException if the file cannot be opened
+     * @return reader of the file
+     */
+    public static PgnReader open(Path file) throws IOException {
+        return new PgnReader(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        AtomicLong plies = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        long start = System.nanoTime();
+        long games = forEachGame(Paths.get(args[0]), threads, game -> {
+            try {
+                game.replay(null);
+                plies.addAndGet(game.getSanMoves().size());
+            } catch (IllegalArgumentException e) {
+                errors.incrementAndGet();
+                System.err.println(e.getMessage());
+            }
+        });
+        long millis = Math.max(1, (System.nanoTime() - start) / 1000000);
+        System.out.printf("%d games, %d plies, %d errors in %d ms (%d games/s)%n", games, plies.get(),
+                errors.get(), millis, games * 1000 / millis);
+    }
+
+    /**
+     * Read every game of a file, handing each to the given action on one of a number of worker
+     * threads. The reader waits for the workers when they fall behind. If the action throws, no
+     * further games are read or handed to it, and the first exception or error it threw is
+     * rethrown once the workers are done.
+     * @param file PGN file
+     * @param threads number of worker threads
+     * @param action action run on each game, which may be run on several threads at once
+     * @throws IOException if the file cannot be read
+     * @throws InterruptedException if interrupted while waiting for the workers
+     * @return number of games read
+     */
+    public static long forEachGame(Path file, int threads, Consumer<PgnGame> action)
+            throws IOException, InterruptedException {
+        BlockingQueue<PgnGame> queue = new ArrayBlockingQueue<>(threads * QUEUED_PER_THREAD);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            workers.execute(() -> {
+                try {
+                    PgnGame game;
+                    // After a failure, keep taking games until the end so that the reader is never
+                    // blocked, without running the action on them.
+                    while ((game = queue.take()) != END) {
+                        if (failure.get() == null) {
+                            try {
+                                action.accept(game);
+                            } catch (Throwable e) {
+                                failure.compareAndSet(null, e);
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        long count = 0;
+        try (PgnReader reader = open(file)) {
+            PgnGame game;
+            while (failure.get() == null && (game = reader.next()) != null) {
+                queue.put(game);
+                count++;
+            }
+        } finally {
+            for (int i = 0; i < threads; i++) {
+                queue.put(END);
+            }
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        }
+        Throwable e = failure.get();
+        if (e instanceof Error) {
+            throw (Error) e;
+        } else if (e != null) {
+            throw e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+        }
+        return count;
+    }
+
+    /**
+     * Read the next game.
+     * @throws IOException if the input cannot be read
+     * @return next game, or null if there are no more games
+     */
+    public PgnGame next() throws IOException {
+        int c;
+        while ((c = peek()) != -1 && isWhitespace(c)) {
+            read();
+        }
+        long offset = position;
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<String> moves = new ArrayList<>(80);
+        String result = null;
+        while (result == null && (c = peek()) != -1) {
+            if (isWhitespace(c) || c == ')') {
+                read();
+            } else if (c == '[') {
+                if (!moves.isEmpty()) {
+                    // A game without a result, followed by the tags of the next game.
+                    break;
+                }
+                readTag(tags);
+            } else if (c == '{') {
+                skipPast('}');
+            } else if (c == ';' || c == '%') {
+                skipPast('\n');
+            } else if (c == '(') {
+                skipVariation();
+            } else if (c == '$') {
+                read();
+                readToken();
+            } else {
+                int length = readToken();
+                if (isResult(length)) {
+                    result = new String(token, 0, length, StandardCharsets.US_ASCII);
+                } else {
+                    // Skip the move number in front of a move, as in "12." or "12...Nf6".
+                    int start = 0;
+                    while (start < length && token[start] >= '0' && token[start] <= '9') {
+                        start++;
+                    }
+                    if (start < length && token[start] != '.') {
+                        // Not a move number, as in castling written with zeros ("0-0").
+                        start = 0;
+                    }
+                    while (start < length && token[start] == '.') {
+                        start++;
+                    }
+                    if (start < length) {
+                        moves.add(new String(token, start, length - start, StandardCharsets.US_ASCII));
+                    }
+                }
+            }
+        }
+        if (tags.isEmpty() && moves.isEmpty() && result == null) {
+            return null;
+        }
+        return new PgnGame(offset, tags, moves, result == null ? "*" : result);
+    }
+
+    /**
+     * Close the source of the games.
+     * @throws IOException if it cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Read a tag pair such as [Event "Casual game"].
+    private void readTag(Map<String, String> tags) throws IOException {
+        read();
+        int c;
+        while ((c = peek()) != -1 && isWhitespace(c)) {
+            read();
+        }
+        int length = 0;
+        while ((c = peek()) != -1 && !isWhitespace(c) && c != '"' && c != ']') {
+            length = append(length, read());
+        }
+        String name = new String(token, 0, length, StandardCharsets.US_ASCII);
+        while ((c = peek()) != -1 && c != '"' && c != ']' && c != '\n') {
+            read();
+        }
+        length = 0;
+        if (c == '"') {
+            read();
+            while ((c = read()) != -1 && c != '"' && c != '\n') {
+                if (c == '\\') {
+                    c = read();
+                }
+                length = append(length, c);
+            }
+        }
+        tags.put(name, new String(token, 0, length, StandardCharsets.UTF_8));
+        while (c != -1 && c != ']' && c != '\n') {
+            c = read();
+        }
+    }
+
+    // Read the bytes up to the next whitespace or delimiter into the token buffer, returning their
+    // number.
+    private int readToken() throws IOException {
+        int length = 0;
+        int c;
+        while ((c = peek()) != -1 && !isWhitespace(c) && "[]{}();$".indexOf(c) < 0) {
+            length = append(length, read());
+        }
+        return length;
+    }
+
+    private boolean isResult(int length) {
+        String[] results = {"1-0", "0-1", "1/2-1/2", "*"};
+        for (String r : results) {
+            if (r.length() == length) {
+                boolean equal = true;
+                for (int i = 0; i < length && equal; i++) {
+                    equal = token[i] == r.charAt(i);
+                }
+                if (equal) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // Skip a variation, including the variations and comments nested in it.
+    private void skipVariation() throws IOException {
+        int depth = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return;
+            } else if (c == '{') {
+                skipPast('}');
+            } else if (c == ';') {
+                skipPast('\n');
+            }
+        }
+    }
+
+    private void skipPast(int end) throws IOException {
+        int c;
+        while ((c = read()) != -1 && c != end) {
+            // Skipped.
+        }
+    }
+
+    private int append(int length, int c) {
+        if (length == token.length) {
+            byte[] larger = new byte[token.length * 2];
+            System.arraycopy(token, 0, larger, 0, length);
+            token = larger;
+        }
+        token[length] = (byte) c;
+        return length + 1;
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    // Returns the next byte without reading it, or -1 at the end of the input.
+    private int peek() throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int n;
+            do {
+                n = channel.read(buffer);
+            } while (n == 0);
+            buffer.flip();
+            if (n < 0) {
+                return -1;
+            }
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    // Returns the next byte, or -1 at the end of the input.
+    private int read() throws IOException {
+        int c = peek();
+        if (c != -1) {
+            buffer.get();
+            position++;
+        }
+        return c;
+    }
+}
@@ -0,0 +1,113 @@
+package pgn;
+
+import functionality.ChessGame;
+import functionality.Move;
+import functionality.TeamColor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writer of games in Portable Game Notation. Games are written one at a time, with their tags
+ * followed by their moves in Standard Algebraic Notation. Safe to use from several threads, each
+ * game being written as a whole.
+ */
+public class PgnWriter implements Closeable {
+    // Tags every PGN game has, in the order they are written, with their value when unknown.
+    private static final String[] SEVEN_TAG_ROSTER = {"Event", "Site", "Date", "Round", "White", "Black", "Result"};
+    private static final int MAX_LINE_LENGTH = 79;
+
+    private final Writer out;
+
+    /**
+     * Create a writer of games to the given destination.
+     * @param out destination of the games
+     */
+    public PgnWriter(Writer out) {
+        this.out = out;
+    }
+
+    /**
+     * Write a game played from the given position.
+     * @param tags tag pairs of the game, which are written after the seven tag roster (those of the
+     *             roster that are missing are written as unknown)
+     * @param startFen FEN of the position the game started from
+     * @param moves moves of the game, which must be legal
+     * @param result result of the game: "1-0", "0-1", "1/2-1/2" or "*"
+     * @throws IOException if the game cannot be written
+     */
+    public synchronized void writeGame(Map<String, String> tags, String startFen, List<Move> moves, String result)
+            throws IOException {
+        StringBuilder pgn = new StringBuilder(256 + moves.size() * 8);
+        for (String name : SEVEN_TAG_ROSTER) {
+            appendTag(pgn, name, name.equals("Result") ? result : tags.getOrDefault(name, "?"));
+        }
+        if (!startFen.equals(ChessGame.STARTING_FEN)) {
+            appendTag(pgn, "SetUp", "1");
+            appendTag(pgn, "FEN", startFen);
+        }
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            if (!isReserved(tag.getKey())) {
+                appendTag(pgn, tag.getKey(), tag.getValue());
+            }
+        }
+        pgn.append('\n');
+
+        ChessGame game = ChessGame.fromFen(startFen);
+        int lineStart = pgn.length();
+        boolean first = true;
+        for (Move move : moves) {
+            String token = game.currentTurn() == TeamColor.WHITE ? game.getFullmoveNumber() + ". "
+                    : first ? game.getFullmoveNumber() + "... " : "";
+            token += San.toSan(game, move);
+            lineStart = appendToken(pgn, token, lineStart);
+            game.attemptMove(move);
+            first = false;
+        }
+        appendToken(pgn, result, lineStart);
+        pgn.append("\n\n");
+        out.write(pgn.toString());
+        out.flush();
+    }
+
+    /**
+     * Close the destination of the games.
+     * @throws IOException if it cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private static boolean isReserved(String name) {
+        for (String roster : SEVEN_TAG_ROSTER) {
+            if (roster.equals(name)) {
+                return true;
+            }
+        }
+        return name.equals("SetUp") || name.equals("FEN");
+    }
+
+    private static void appendTag(StringBuilder pgn, String name, String value) {
+        pgn.append('[').append(name).append(" \"")
+                .append(value.replace("\\", "\\\\").replace("\"", "\\\"")).append("\"]\n");
+    }
+
+    // Append a token of the movetext, starting a new line if it would make the current one too
+    // long. Returns the index the current line starts at.
+    private static int appendToken(StringBuilder pgn, String token, int lineStart) {
+        if (pgn.length() > lineStart) {
+            if (pgn.length() - lineStart + 1 + token.length() > MAX_LINE_LENGTH) {
+                pgn.append('\n');
+                lineStart = pgn.length();
+            } else {
+                pgn.append(' ');
+            }
+        }
+        pgn.append(token);
+        return lineStart;
+    }
+}
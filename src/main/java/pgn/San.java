@@ -0,0 +1,192 @@
+package pgn;
+
+import functionality.BoardCoordinate;
+import functionality.ChessGame;
+import functionality.ChessPiece;
+import functionality.King;
+import functionality.Move;
+import functionality.Pawn;
+import functionality.TeamColor;
+
+/**
+ * Conversion of moves to and from Standard Algebraic Notation (SAN), the notation used by PGN,
+ * such as "e4", "Nbd7", "exd5", "O-O" or "e8=Q+".
+ */
+public final class San {
+
+    private San() { }
+
+    /**
+     * Returns the given legal move of the game in Standard Algebraic Notation, including a check
+     * or checkmate suffix. The game is not changed.
+     * @param game game in the position the move is made from
+     * @param move legal move of the team to move, with its promotion piece if it promotes a pawn
+     * @return move in SAN
+     */
+    public static String toSan(ChessGame game, Move move) {
+        BoardCoordinate src = move.getFirst();
+        BoardCoordinate dest = move.getSecond();
+        ChessPiece piece = game.getPieceAt(src);
+        StringBuilder san = new StringBuilder(8);
+
+        if (piece instanceof King && Math.abs(dest.c - src.c) == 2) {
+            san.append(dest.c > src.c ? "O-O" : "O-O-O");
+        } else if (piece instanceof Pawn) {
+            if (game.isCaptureMove(src, dest)) {
+                san.append((char) ('a' + src.c)).append('x');
+            }
+            san.append(dest.toAlgebraic());
+            if (move.getPawnPromotion() != 0) {
+                san.append('=').append(Character.toUpperCase(move.getPawnPromotion()));
+            }
+        } else {
+            san.append(Character.toUpperCase(piece.getShortName()));
+            appendDisambiguation(san, game, piece, src, dest);
+            if (game.isCaptureMove(src, dest)) {
+                san.append('x');
+            }
+            san.append(dest.toAlgebraic());
+        }
+
+        ChessGame.MoveOutcome outcome = game.copy().attemptMove(move);
+        if (outcome == ChessGame.MoveOutcome.CHECKMATE) {
+            san.append('#');
+        } else if (outcome == ChessGame.MoveOutcome.CHECK) {
+            san.append('+');
+        }
+        return san.toString();
+    }
+
+    /**
+     * Returns the legal move of the game written in Standard Algebraic Notation. Check, checkmate
+     * and annotation suffixes are ignored, and castling may also be written with zeros.
+     * @param game game in the position the move is made from
+     * @param san move in SAN
+     * @throws IllegalArgumentException if the move is not valid SAN, or does not match exactly one
+     *         legal move
+     * @return the move, with its promotion piece if it promotes a pawn
+     */
+    public static Move fromSan(ChessGame game, String san) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        TeamColor team = game.currentTurn();
+        int homeRow = team == TeamColor.WHITE ? 7 : 0;
+        if (san.startsWith("O-O") || san.startsWith("0-0")) {
+            boolean queenSide = end == 5;
+            if (end != 3 && !queenSide) {
+                throw invalidSan(san);
+            }
+            BoardCoordinate king = new BoardCoordinate(homeRow, 4);
+            return legalOrThrow(game, new Move(king, new BoardCoordinate(homeRow, queenSide ? 2 : 6)), san);
+        }
+
+        char promotion = 0;
+        if (end >= 2 && "QRBN".indexOf(san.charAt(end - 1)) >= 0) {
+            promotion = Character.toLowerCase(san.charAt(--end));
+            if (san.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+        if (end < 2) {
+            throw invalidSan(san);
+        }
+        BoardCoordinate dest = square(san.charAt(end - 2), san.charAt(end - 1));
+        int start = 0;
+        char pieceName = 'p';
+        if ("KQRBN".indexOf(san.charAt(0)) >= 0) {
+            pieceName = Character.toLowerCase(san.charAt(0));
+            start = 1;
+        }
+        // Anything between the piece and the destination is a file, rank or square of the source,
+        // with an optional capture mark.
+        int fromFile = -1;
+        int fromRow = -1;
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRow = '8' - c;
+            } else if (c != 'x' && c != ':') {
+                throw invalidSan(san);
+            }
+        }
+        if (dest == null || (promotion != 0 && pieceName != 'p')) {
+            throw invalidSan(san);
+        }
+
+        Move found = null;
+        for (int i = 0; i < 64; i++) {
+            BoardCoordinate src = new BoardCoordinate(i);
+            ChessPiece p = game.getPieceAt(src);
+            if (p == null || p.getColor() != team || p.getShortName() != pieceName
+                    || (fromFile >= 0 && src.c != fromFile) || (fromRow >= 0 && src.r != fromRow)
+                    || !game.isMoveLegal(src, dest)) {
+                continue;
+            }
+            if (found != null) {
+                throw new IllegalArgumentException("Ambiguous move: " + san);
+            }
+            found = promotion == 0 ? new Move(src, dest) : new Move(src, dest, promotion);
+        }
+        if (found == null) {
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+        boolean promotes = pieceName == 'p' && (dest.r == 0 || dest.r == 7);
+        if (promotes != (promotion != 0)) {
+            throw invalidSan(san);
+        }
+        return found;
+    }
+
+    // Append the file, rank or square of the moving piece when another piece of the same kind could
+    // also move to the destination: the file if it tells them apart, else the rank, else both.
+    private static void appendDisambiguation(StringBuilder san, ChessGame game, ChessPiece piece,
+                                             BoardCoordinate src, BoardCoordinate dest) {
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (int i = 0; i < 64; i++) {
+            BoardCoordinate other = new BoardCoordinate(i);
+            ChessPiece p = game.getPieceAt(other);
+            if (p != null && p != piece && p.getColor() == piece.getColor()
+                    && p.getShortName() == piece.getShortName() && game.isMoveLegal(other, dest)) {
+                ambiguous = true;
+                sameFile |= other.c == src.c;
+                sameRank |= other.r == src.r;
+            }
+        }
+        if (!ambiguous) {
+            return;
+        }
+        String square = src.toAlgebraic();
+        if (!sameFile) {
+            san.append(square.charAt(0));
+        } else if (!sameRank) {
+            san.append(square.charAt(1));
+        } else {
+            san.append(square);
+        }
+    }
+
+    private static Move legalOrThrow(ChessGame game, Move move, String san) {
+        if (!(game.getPieceAt(move.getFirst()) instanceof King)
+                || !game.isMoveLegal(move.getFirst(), move.getSecond())) {
+            throw new IllegalArgumentException("Illegal move: " + san);
+        }
+        return move;
+    }
+
+    private static BoardCoordinate square(char file, char rank) {
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            return null;
+        }
+        return new BoardCoordinate('8' - rank, file - 'a');
+    }
+
+    private static IllegalArgumentException invalidSan(String san) {
+        return new IllegalArgumentException("Invalid SAN: " + san);
+    }
+}
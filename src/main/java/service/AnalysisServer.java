@@ -0,0 +1,437 @@
+package service;
+
+import bot.CachedEvaluator;
+import bot.ChessDelegate;
+import bot.MinimaxTreeExplorer;
+import bot.NaiveUtilityEvaluator;
+import bot.Scores;
+import bot.TranspositionTable;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import functionality.ChessGame;
+import functionality.Move;
+import functionality.TeamColor;
+import pgn.San;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HTTP service, listening on localhost only, that analyzes positions for other tools. Every
+ * endpoint takes the position as a "fen" query parameter and answers in JSON:
+ *
+ *   GET /bestmove?fen=...&depth=n            best move, score and principal variation
+ *   GET /multipv?fen=...&depth=n&lines=k     the k best moves, each with its score and line
+ *   GET /legalmoves?fen=...                   legal moves in long algebraic notation
+ *   GET /stats                                counts of searches, coalesced requests and cache hits
+ *
+ * Searches run on a fixed pool of workers whose explorers share one transposition table, which is
+ * aged once per generation of searches rather than by each search: a generation starts with a
+ * search made while none were running, or after SEARCHES_PER_GENERATION searches. Requests
+ * for a position, depth and number of lines that is already being searched wait for that search
+ * instead of starting another, and results are kept in a bounded LRU cache keyed by the position's
+ * Zobrist hash.
+ *
+ * Usage: AnalysisServer [port] [threads]
+ */
+public class AnalysisServer {
+    private static final int DEFAULT_PORT = 8080;
+    private static final int DEFAULT_DEPTH = 5;
+    private static final int MAX_DEPTH = 10;
+    private static final int MAX_LINES = 5;
+    private static final int DEFAULT_CACHE_SIZE = 10000;
+    private static final int TABLE_SIZE_BITS = 22;
+    // Searches after which the shared table is aged even if searches have kept running.
+    private static final int SEARCHES_PER_GENERATION = 64;
+
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ExecutorService workers;
+    private final TranspositionTable table = new TranspositionTable(TABLE_SIZE_BITS);
+    private final ThreadLocal<MinimaxTreeExplorer<ChessGame>> explorers;
+    private final Map<SearchKey, CompletableFuture<List<Line>>> inFlight = new ConcurrentHashMap<>();
+    private final LruCache<SearchKey, List<Line>> cache;
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    // Searches running and searches started in the table's current generation, guarded by the
+    // table's lock.
+    private int runningSearches;
+    private int generationSearches;
+
+    /**
+     * Create a server listening on the given port of the loopback address. It does not answer
+     * requests until started.
+     * @param port port to listen on, or 0 for any free port
+     * @param threads number of searches run at once
+     * @param cacheSize number of results kept in the cache
+     * @throws IOException if the server cannot listen on the port
+     */
+    public AnalysisServer(int port, int threads, int cacheSize) throws IOException {
+        this.cache = new LruCache<>(cacheSize);
+        this.workers = Executors.newFixedThreadPool(threads, daemonThreads("analysis-worker"));
+        this.handlers = Executors.newCachedThreadPool(daemonThreads("analysis-http"));
+        this.explorers = ThreadLocal.withInitial(() -> {
+            MinimaxTreeExplorer<ChessGame> explorer = new MinimaxTreeExplorer<>(
+                    new CachedEvaluator(new NaiveUtilityEvaluator()), new ChessDelegate(), TeamColor.WHITE, null,
+                    DEFAULT_DEPTH);
+            explorer.setTranspositionTable(table);
+            explorer.setTableAging(false);
+            explorer.setFutilityPruning(true);
+            explorer.setReverseFutilityPruning(true);
+            explorer.setIterativeDeepening(true);
+            return explorer;
+        });
+
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.setExecutor(handlers);
+        server.createContext("/bestmove", exchange -> handle(exchange, this::bestMove));
+        server.createContext("/multipv", exchange -> handle(exchange, this::multiPv));
+        server.createContext("/legalmoves", exchange -> handle(exchange, this::legalMoves));
+        server.createContext("/stats", exchange -> handle(exchange, params -> stats()));
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        AnalysisServer server = new AnalysisServer(port, threads, DEFAULT_CACHE_SIZE);
+        server.start();
+        System.out.println("Listening on http://localhost:" + server.getPort());
+    }
+
+    /**
+     * Start answering requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop answering requests and release the server's threads.
+     */
+    public void stop() {
+        server.stop(0);
+        handlers.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     * @return port number
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Search a position for its best moves, waiting for the search of the same request if one is
+     * already running and answering from the cache if the request was already searched.
+     * @param game position to search, which is not changed
+     * @param depth depth to search to
+     * @param lines number of best moves to find
+     * @return future completed with the best moves, best first
+     */
+    public CompletableFuture<List<Line>> analyze(ChessGame game, int depth, int lines) {
+        SearchKey key = new SearchKey(game.getKey(), depth, lines);
+        List<Line> cached = cache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<List<Line>> search = new CompletableFuture<>();
+        CompletableFuture<List<Line>> running = inFlight.putIfAbsent(key, search);
+        if (running != null) {
+            coalesced.increment();
+            return running;
+        }
+        ChessGame position = game.copy();
+        workers.execute(() -> {
+            try {
+                // Another request may have completed between the cache lookup and this search.
+                List<Line> result = cache.get(key);
+                if (result == null) {
+                    result = search(position, depth, lines);
+                    cache.put(key, result);
+                }
+                search.complete(result);
+            } catch (Throwable e) {
+                // Also errors, so that the requests waiting for this search are not left waiting.
+                search.completeExceptionally(e);
+            } finally {
+                inFlight.remove(key, search);
+            }
+        });
+        return search;
+    }
+
+    /**
+     * Returns the number of searches run, excluding requests answered by the cache or by another
+     * request's search.
+     * @return search count
+     */
+    public long getSearchCount() {
+        return searches.sum();
+    }
+
+    /**
+     * Returns the number of requests that waited for the search of an identical request.
+     * @return coalesced request count
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * Returns the number of requests answered by the cache.
+     * @return cache hit count
+     */
+    public long getCacheHits() {
+        return cache.getHits();
+    }
+
+    // Search a position with the explorer of the current worker. Package-private so that tests can
+    // make searches fail.
+    List<Line> search(ChessGame game, int depth, int lines) {
+        searches.increment();
+        MinimaxTreeExplorer<ChessGame> explorer = explorers.get();
+        explorer.setTeam(game.currentTurn());
+        explorer.setRoot(game);
+        explorer.setMaxDepth(depth);
+        List<MinimaxTreeExplorer<ChessGame>.NodeValue> nodes;
+        startSearch();
+        try {
+            nodes = explorer.getNextBestNodes(lines);
+        } finally {
+            endSearch();
+        }
+        List<Line> result = new ArrayList<>(lines);
+        for (MinimaxTreeExplorer<ChessGame>.NodeValue nv : nodes) {
+            result.add(new Line(nv.node.getLastMove(), San.toSan(game, nv.node.getLastMove()), nv.value,
+                    explorer.getDepthReached(), explorer.getNodeCount(), nv.pv));
+        }
+        return result;
+    }
+
+    // Count a search as running, aging the shared table if it starts a new generation.
+    private void startSearch() {
+        synchronized (table) {
+            if (runningSearches++ == 0 || ++generationSearches > SEARCHES_PER_GENERATION) {
+                table.newSearch();
+                generationSearches = 1;
+            }
+        }
+    }
+
+    private void endSearch() {
+        synchronized (table) {
+            runningSearches--;
+        }
+    }
+
+    private String bestMove(Map<String, String> params) {
+        ChessGame game = parseGame(params);
+        List<Line> lines = analyze(game, intParam(params, "depth", DEFAULT_DEPTH, MAX_DEPTH), 1).join();
+        if (lines.isEmpty()) {
+            return "{\"bestmove\":null}";
+        }
+        StringBuilder json = new StringBuilder("{\"bestmove\":\"").append(lines.get(0).move).append("\",");
+        appendLine(json, lines.get(0));
+        return json.append('}').toString();
+    }
+
+    private String multiPv(Map<String, String> params) {
+        ChessGame game = parseGame(params);
+        int depth = intParam(params, "depth", DEFAULT_DEPTH, MAX_DEPTH);
+        List<Line> lines = analyze(game, depth, intParam(params, "lines", 3, MAX_LINES)).join();
+        StringBuilder json = new StringBuilder("{\"lines\":[");
+        for (int i = 0; i < lines.size(); i++) {
+            json.append(i == 0 ? "{" : ",{").append("\"move\":\"").append(lines.get(i).move).append("\",");
+            appendLine(json, lines.get(i));
+            json.append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    private String legalMoves(Map<String, String> params) {
+        List<String> moves = new ArrayList<>();
+        for (Move move : parseGame(params).getPossibleMoves()) {
+            moves.add(move.toString());
+        }
+        moves.sort(null);
+        StringBuilder json = new StringBuilder("{\"moves\":[");
+        for (int i = 0; i < moves.size(); i++) {
+            json.append(i == 0 ? "\"" : ",\"").append(moves.get(i)).append('"');
+        }
+        return json.append("]}").toString();
+    }
+
+    private String stats() {
+        return "{\"searches\":" + getSearchCount() + ",\"coalesced\":" + getCoalescedCount()
+                + ",\"cacheHits\":" + getCacheHits() + ",\"cacheSize\":" + cache.size() + "}";
+    }
+
+    // Append the fields of a line shared by the endpoints that search.
+    private static void appendLine(StringBuilder json, Line line) {
+        json.append("\"san\":\"").append(line.san).append("\",\"score\":{");
+        if (Scores.isMate(line.score)) {
+            int plies = Scores.MATE - Math.abs(line.score);
+            json.append("\"mate\":").append(line.score > 0 ? (plies + 1) / 2 : -(plies / 2));
+        } else {
+            json.append("\"cp\":").append(line.score);
+        }
+        json.append("},\"depth\":").append(line.depth).append(",\"nodes\":").append(line.nodes).append(",\"pv\":[");
+        for (int i = 0; i < line.pv.length; i++) {
+            json.append(i == 0 ? "\"" : ",\"").append(Move.fromCode(line.pv[i])).append('"');
+        }
+        json.append(']');
+    }
+
+    // Answer a GET request with the JSON produced by the given endpoint, or with an error.
+    private static void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        int status = 200;
+        String body;
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                status = 405;
+                body = error("Only GET is supported");
+            } else {
+                body = endpoint.respond(parseQuery(exchange.getRequestURI().getRawQuery()));
+            }
+        } catch (IllegalArgumentException e) {
+            status = 400;
+            body = error(e.getMessage());
+        } catch (CompletionException e) {
+            status = 500;
+            body = error(String.valueOf(e.getCause()));
+        } catch (RuntimeException e) {
+            status = 500;
+            body = error(e.toString());
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int split = pair.indexOf('=');
+            if (split > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, split), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(split + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static ChessGame parseGame(Map<String, String> params) {
+        String fen = params.get("fen");
+        if (fen == null) {
+            throw new IllegalArgumentException("Missing fen parameter");
+        }
+        return ChessGame.fromFen(fen.trim());
+    }
+
+    // Returns the integer parameter of the given name, which must be between 1 and max.
+    private static int intParam(Map<String, String> params, String name, int defaultValue, int max) {
+        String value = params.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int n = Integer.parseInt(value);
+            if (n >= 1 && n <= max) {
+                return n;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below.
+        }
+        throw new IllegalArgumentException(name + " must be between 1 and " + max);
+    }
+
+    private static String error(String message) {
+        return "{\"error\":\"" + message.replace("\\", "\\\\").replace("\"", "\\\"") + "\"}";
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * One of the best moves of a position, with its score and expected line.
+     */
+    public static class Line {
+        public final Move move;
+        public final String san;
+        public final int score;
+        public final int depth;
+        public final long nodes;
+        public final int[] pv;
+
+        public Line(Move move, String san, int score, int depth, long nodes, int[] pv) {
+            this.move = move;
+            this.san = san;
+            this.score = score;
+            this.depth = depth;
+            this.nodes = nodes;
+            this.pv = pv;
+        }
+    }
+
+    private interface Endpoint {
+        String respond(Map<String, String> params);
+    }
+
+    // Identity of a search request: the position and the search's depth and number of lines.
+    private static final class SearchKey {
+        private final long positionKey;
+        private final int depth;
+        private final int lines;
+
+        private SearchKey(long positionKey, int depth, int lines) {
+            this.positionKey = positionKey;
+            this.depth = depth;
+            this.lines = lines;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof SearchKey)) {
+                return false;
+            }
+            SearchKey other = (SearchKey) obj;
+            return positionKey == other.positionKey && depth == other.depth && lines == other.lines;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(positionKey, depth, lines);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Thread-safe map of bounded size that evicts its least recently used entry when full.
+ */
+public class LruCache<K, V> {
+    private final Map<K, V> map;
+    private long hits;
+    private long misses;
+
+    /**
+     * Create a cache holding up to the given number of entries.
+     * @param capacity max number of entries
+     */
+    public LruCache(int capacity) {
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the value stored for a key, making it the most recently used entry.
+     * @param key key to look up
+     * @return value, or null if the key is not in the cache
+     */
+    public synchronized V get(K key) {
+        V value = map.get(key);
+        if (value == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return value;
+    }
+
+    /**
+     * Store a value, evicting the least recently used entry if the cache is full.
+     * @param key key of the value
+     * @param value value to store
+     */
+    public synchronized void put(K key, V value) {
+        map.put(key, value);
+    }
+
+    public synchronized int size() {
+        return map.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,404 @@
+package uci;
+
+import bot.BotAgent;
+import bot.Scores;
+import functionality.BoardCoordinate;
+import functionality.ChessGame;
+import functionality.Move;
+import functionality.TeamColor;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Headless front-end that lets the bot be driven through the Universal Chess Interface over
+ * standard input and output, so that it can be run by tournament managers and chess GUIs.
+ *
+ * Supported commands are uci, isready, setoption (MultiPV), ucinewgame, position, go (with
+ * wtime, btime, winc, binc, movestogo, movetime, depth, nodes, infinite and ponder), stop,
+ * ponderhit and quit. Searches run on the bot's search thread, which also sends the info lines
+ * as each depth is completed, so that commands keep being read while the bot is thinking.
+ */
+public class UciEngine {
+    private static final String NAME = "chess-ai";
+    private static final String AUTHOR = "Benjamin Lowry";
+    private static final int MAX_MULTI_PV = 5;
+    // Depth searched to when a search is limited by time or nodes instead.
+    private static final int UNLIMITED_DEPTH = 64;
+    private static final int DEFAULT_MOVES_TO_GO = 30;
+    // Time kept in reserve for communication delays.
+    private static final long MOVE_OVERHEAD_MILLIS = 30;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final Map<TeamColor, BotAgent> bots = new EnumMap<>(TeamColor.class);
+    private ChessGame game = new ChessGame();
+    private int multiPv = 1;
+
+    // State of the current search, guarded by this object's lock.
+    private BotAgent searchingBot;
+    private CompletableFuture<List<BotAgent.MoveUtility>> search;
+    // Whether the best move must wait for stop or ponderhit, as when pondering or searching
+    // infinitely.
+    private boolean waitForStop;
+    private boolean pondering;
+    private long ponderHitTimeLimit;
+    private List<BotAgent.MoveUtility> pendingResult;
+
+    /**
+     * Create an engine that reads commands from the given reader and writes replies to the given
+     * stream.
+     * @param in source of commands
+     * @param out destination of replies
+     */
+    public UciEngine(Reader in, PrintStream out) {
+        this.in = new BufferedReader(in);
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        new UciEngine(new InputStreamReader(System.in), System.out).run();
+    }
+
+    /**
+     * Read and handle commands until quit is received or the input ends.
+     * @throws IOException if the commands cannot be read
+     */
+    public void run() throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!handle(line)) {
+                break;
+            }
+        }
+        quit();
+    }
+
+    /**
+     * Handle a single command.
+     * @param line command line
+     * @return false if the command was quit, and true otherwise
+     */
+    public boolean handle(String line) {
+        String[] tokens = line.trim().split("\\s+");
+        switch (tokens[0]) {
+            case "uci":
+                send("id name " + NAME);
+                send("id author " + AUTHOR);
+                send("option name MultiPV type spin default 1 min 1 max " + MAX_MULTI_PV);
+                send("option name Ponder type check default false");
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "setoption":
+                setOption(tokens);
+                break;
+            case "ucinewgame":
+                stop();
+                awaitSearch();
+                bots.values().forEach(BotAgent::shutdown);
+                bots.clear();
+                game = new ChessGame();
+                break;
+            case "position":
+                stop();
+                awaitSearch();
+                setPosition(tokens);
+                break;
+            case "go":
+                go(tokens);
+                break;
+            case "stop":
+                stop();
+                break;
+            case "ponderhit":
+                ponderHit();
+                break;
+            case "quit":
+                return false;
+            default:
+                // Unknown commands are ignored, as the protocol requires.
+                break;
+        }
+        return true;
+    }
+
+    // Stop any search, wait for its best move to be sent and release the bots' threads.
+    private void quit() {
+        stop();
+        awaitSearch();
+        bots.values().forEach(BotAgent::shutdown);
+    }
+
+    // Handle "setoption name <name> value <value>".
+    private void setOption(String[] tokens) {
+        if (tokens.length >= 5 && tokens[1].equals("name") && tokens[2].equalsIgnoreCase("MultiPV")
+                && tokens[3].equals("value")) {
+            try {
+                multiPv = Math.max(1, Math.min(MAX_MULTI_PV, Integer.parseInt(tokens[4])));
+            } catch (NumberFormatException e) {
+                send("info string invalid MultiPV value " + tokens[4]);
+            }
+        }
+    }
+
+    // Handle "position (startpos | fen <fen>) [moves ...]".
+    private void setPosition(String[] tokens) {
+        int i = 2;
+        if (tokens.length >= 2 && tokens[1].equals("startpos")) {
+            game = new ChessGame();
+        } else if (tokens.length >= 3 && tokens[1].equals("fen")) {
+            StringBuilder fen = new StringBuilder(tokens[2]);
+            for (i = 3; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                fen.append(' ').append(tokens[i]);
+            }
+            try {
+                game = ChessGame.fromFen(fen.toString());
+            } catch (IllegalArgumentException e) {
+                send("info string " + e.getMessage());
+                return;
+            }
+        } else {
+            send("info string invalid position command");
+            return;
+        }
+        for (; i < tokens.length; i++) {
+            if (tokens[i].equals("moves")) {
+                continue;
+            }
+            if (!playMove(tokens[i])) {
+                send("info string illegal move " + tokens[i]);
+                return;
+            }
+        }
+    }
+
+    // Play a move in long algebraic notation, e.g. "e2e4" or "e7e8q". Returns false if the move
+    // is not legal.
+    private boolean playMove(String move) {
+        if (move.length() < 4 || move.length() > 5) {
+            return false;
+        }
+        BoardCoordinate src = parseSquare(move.charAt(0), move.charAt(1));
+        BoardCoordinate dest = parseSquare(move.charAt(2), move.charAt(3));
+        if (src == null || dest == null || (move.length() == 5 && "qrbn".indexOf(move.charAt(4)) < 0)) {
+            return false;
+        }
+        ChessGame.MoveOutcome outcome = game.attemptMove(src, dest);
+        if (outcome == ChessGame.MoveOutcome.FAILURE) {
+            return false;
+        }
+        if (outcome == ChessGame.MoveOutcome.PAWN_PROMOTION) {
+            game.promotePawn(move.length() == 5 ? move.charAt(4) : 'q');
+        }
+        return true;
+    }
+
+    // Returns the square with the given file and rank characters, or null if they are invalid.
+    private static BoardCoordinate parseSquare(char file, char rank) {
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') {
+            return null;
+        }
+        return new BoardCoordinate('8' - rank, file - 'a');
+    }
+
+    // Handle "go" and its search limits.
+    private synchronized void go(String[] tokens) {
+        if (search != null) {
+            send("info string already searching");
+            return;
+        }
+        long[] clock = new long[2];
+        long[] increment = new long[2];
+        long moveTime = 0;
+        long nodes = 0;
+        int movesToGo = 0;
+        int depth = 0;
+        boolean infinite = false;
+        boolean ponder = false;
+        try {
+            for (int i = 1; i < tokens.length; i++) {
+                switch (tokens[i]) {
+                    case "wtime":
+                        clock[0] = Long.parseLong(tokens[++i]);
+                        break;
+                    case "btime":
+                        clock[1] = Long.parseLong(tokens[++i]);
+                        break;
+                    case "winc":
+                        increment[0] = Long.parseLong(tokens[++i]);
+                        break;
+                    case "binc":
+                        increment[1] = Long.parseLong(tokens[++i]);
+                        break;
+                    case "movestogo":
+                        movesToGo = Integer.parseInt(tokens[++i]);
+                        break;
+                    case "movetime":
+                        moveTime = Long.parseLong(tokens[++i]);
+                        break;
+                    case "depth":
+                        depth = Integer.parseInt(tokens[++i]);
+                        break;
+                    case "nodes":
+                        nodes = Long.parseLong(tokens[++i]);
+                        break;
+                    case "infinite":
+                        infinite = true;
+                        break;
+                    case "ponder":
+                        ponder = true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            send("info string invalid go command");
+        }
+
+        if (game.isGameOver()) {
+            send("bestmove 0000");
+            return;
+        }
+        int side = game.currentTurn() == TeamColor.WHITE ? 0 : 1;
+        long timeLimit = moveTime > 0 ? Math.max(1, moveTime - MOVE_OVERHEAD_MILLIS)
+                : allocateTime(clock[side], increment[side], movesToGo);
+        boolean limited = infinite || timeLimit > 0 || nodes > 0;
+
+        BotAgent bot = botFor(game.currentTurn());
+        bot.setGame(game);
+        bot.setMaxDepth(depth > 0 ? depth : limited ? UNLIMITED_DEPTH : 0);
+        searchingBot = bot;
+        pondering = ponder;
+        waitForStop = infinite || ponder;
+        ponderHitTimeLimit = ponder ? timeLimit : 0;
+        pendingResult = null;
+        // Waiting for this future also waits for the best move to be sent.
+        search = bot.getNextMovesAsync(multiPv, ponder || infinite ? 0 : timeLimit, nodes)
+                .whenComplete((moves, e) -> searchCompleted(moves));
+    }
+
+    // Returns the time to spend on a move given the time left on the clock, or 0 if the clock is
+    // not given.
+    private static long allocateTime(long clock, long increment, int movesToGo) {
+        if (clock <= 0) {
+            return 0;
+        }
+        long time = clock / (movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO) + increment * 3 / 4;
+        return Math.max(1, Math.min(time, clock / 2 - MOVE_OVERHEAD_MILLIS));
+    }
+
+    // Returns the bot that plays for the given team, creating it on first use.
+    private BotAgent botFor(TeamColor team) {
+        return bots.computeIfAbsent(team, t -> {
+            BotAgent bot = new BotAgent(game, t);
+            bot.setSearchListener((depth, line, score, nodes, millis, pv) -> sendInfo(depth, line, score,
+                    nodes, millis, pv));
+            return bot;
+        });
+    }
+
+    // Send the best move once a search completes, unless it has to wait for stop or ponderhit.
+    private synchronized void searchCompleted(List<BotAgent.MoveUtility> moves) {
+        if (waitForStop) {
+            pendingResult = moves;
+        } else {
+            sendBestMove(moves);
+        }
+    }
+
+    // Stop the current search, which sends its best move.
+    private synchronized void stop() {
+        if (search == null) {
+            return;
+        }
+        waitForStop = false;
+        if (pendingResult != null) {
+            sendBestMove(pendingResult);
+        } else {
+            searchingBot.stopSearch();
+        }
+    }
+
+    // The opponent played the move being pondered, so continue the search as a normal one.
+    private synchronized void ponderHit() {
+        if (search == null || !pondering) {
+            return;
+        }
+        pondering = false;
+        waitForStop = false;
+        if (pendingResult != null) {
+            sendBestMove(pendingResult);
+        } else if (ponderHitTimeLimit > 0) {
+            searchingBot.limitSearchTime(ponderHitTimeLimit);
+        }
+    }
+
+    // Wait until the current search has sent its best move.
+    private void awaitSearch() {
+        CompletableFuture<List<BotAgent.MoveUtility>> current;
+        synchronized (this) {
+            current = search;
+        }
+        if (current != null) {
+            current.handle((moves, e) -> null).join();
+        }
+    }
+
+    // Send the best move of a completed search and end it.
+    private void sendBestMove(List<BotAgent.MoveUtility> moves) {
+        search = null;
+        searchingBot = null;
+        pendingResult = null;
+        if (moves == null || moves.isEmpty()) {
+            send("bestmove 0000");
+            return;
+        }
+        BotAgent.MoveUtility best = moves.get(0);
+        if (best.line.size() > 1) {
+            send("bestmove " + best.move + " ponder " + best.line.get(1));
+        } else {
+            send("bestmove " + best.move);
+        }
+    }
+
+    // Send the info line of a completed line of a search.
+    private void sendInfo(int depth, int line, int score, long nodes, long millis, int[] pv) {
+        StringBuilder info = new StringBuilder("info depth ").append(depth);
+        if (multiPv > 1) {
+            info.append(" multipv ").append(line + 1);
+        }
+        if (Scores.isMate(score)) {
+            int plies = Scores.MATE - Math.abs(score);
+            info.append(" score mate ").append(score > 0 ? (plies + 1) / 2 : -(plies / 2));
+        } else {
+            info.append(" score cp ").append(score);
+        }
+        info.append(" nodes ").append(nodes)
+                .append(" nps ").append(millis == 0 ? 0 : nodes * 1000 / millis)
+                .append(" time ").append(millis)
+                .append(" pv");
+        for (int code : pv) {
+            info.append(' ').append(Move.fromCode(code));
+        }
+        send(info.toString());
+    }
+
+    // Write a line to the output. Called from both the command and the search threads.
+    private void send(String line) {
+        synchronized (out) {
+            out.println(line);
+            out.flush();
+        }
+    }
+}
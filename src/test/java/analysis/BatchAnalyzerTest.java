@@ -0,0 +1,60 @@
+package analysis;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchAnalyzerTest {
+
+    @Test
+    public void testAnalyzeKeepsInputOrder() throws Exception {
+        StringBuilder input = new StringBuilder("# comment\n\n");
+        for (int i = 0; i < 10; i++) {
+            // A mate in one for white, with its EPD operations kept.
+            input.append("6k1/5ppp/8/8/8/8/8/R5K1 w - - id \"mate ").append(i).append("\";\n");
+            input.append("not a position\n");
+            input.append("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1\n");
+        }
+        StringWriter out = new StringWriter();
+        BatchAnalyzer analyzer = new BatchAnalyzer(3, 3, 0);
+        assertEquals(30, analyzer.analyze(new BufferedReader(new StringReader(input.toString())), out));
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(30, lines.length);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(lines[3 * i].startsWith("6k1/5ppp/8/8/8/8/8/R5K1 w - - bm Ra8#; dm 1; acd 3;"));
+            assertTrue(lines[3 * i].endsWith("pv Ra8#; id \"mate " + i + "\";"));
+            assertTrue(lines[3 * i + 1].startsWith("# "));
+            assertTrue(lines[3 * i + 2].startsWith("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - bm "));
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testAnalyzeRethrowsWorkerErrors() throws Exception {
+        BatchAnalyzer analyzer = new BatchAnalyzer(2, 1, 0) {
+            @Override
+            public String analyzePosition(String line) {
+                if (line.startsWith("overflow")) {
+                    throw new StackOverflowError();
+                }
+                return line;
+            }
+        };
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            input.append(i == 5 ? "overflow" : "position " + i).append('\n');
+        }
+        try {
+            analyzer.analyze(new BufferedReader(new StringReader(input.toString())), new StringWriter());
+            fail("Expected the worker's error");
+        } catch (StackOverflowError e) {
+            // Expected.
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package archive;
+
+import functionality.ChessGame;
+import functionality.Move;
+import org.junit.Test;
+import pgn.PgnWriter;
+
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ArchiveTest {
+    private static final String PROMOTION_FEN = "3r2k1/4P3/8/8/8/8/8/4K3 w - - 0 1";
+
+    @Test
+    public void testMoveCodec() {
+        ChessGame promotion = ChessGame.fromFen(PROMOTION_FEN);
+        int[] codes = MoveCodec.orderedCodes(promotion);
+        // Two pawn moves with four promotions each, and three king moves (the rook covers the d-file).
+        assertEquals(11, codes.length);
+        for (int i = 0; i < codes.length; i++) {
+            Move move = MoveCodec.decode(promotion, i);
+            assertEquals(codes[i], move.toCode());
+            assertEquals(i, MoveCodec.encode(promotion, move));
+        }
+        assertEquals(20, MoveCodec.orderedCodes(new ChessGame()).length);
+    }
+
+    @Test
+    public void testArchive() throws Exception {
+        List<ArchivedGame> games = new ArrayList<>();
+        List<List<Move>> moves = new ArrayList<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 300; i++) {
+            String fen = i % 10 == 0 ? PROMOTION_FEN : ChessGame.STARTING_FEN;
+            List<Move> played = randomGame(fen, 16, random);
+            moves.add(played);
+            games.add(ArchivedGame.encode(Map.of("Round", Integer.toString(i)), fen, played, i % 2 == 0 ? "*" : "1-0"));
+        }
+
+        Path file = Files.createTempFile("games", ".cga");
+        try {
+            try (ArchiveWriter writer = new ArchiveWriter(file)) {
+                for (ArchivedGame game : games) {
+                    writer.add(game);
+                }
+            }
+            try (ArchiveReader reader = ArchiveReader.open(file)) {
+                assertEquals(300, reader.getGameCount());
+                assertEquals(2, reader.getBlockCount());
+                for (int i : new int[] {299, 0, 256, 255, 10, 11}) {
+                    ArchivedGame game = reader.getGame(i);
+                    assertEquals(Integer.toString(i), game.getTag("Round"));
+                    assertEquals(i % 10 == 0 ? PROMOTION_FEN : ChessGame.STARTING_FEN, game.getStartFen());
+                    assertEquals(i % 2 == 0 ? "*" : "1-0", game.getResult());
+                    assertEquals(moves.get(i), game.getMoves());
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testConvert() throws Exception {
+        Path dir = Files.createTempDirectory("archive");
+        Path pgn = dir.resolve("games.pgn");
+        Path archive = dir.resolve("games.cga");
+        Random random = new Random(5);
+        List<List<Move>> moves = new ArrayList<>();
+        try {
+            try (Writer out = Files.newBufferedWriter(pgn); PgnWriter writer = new PgnWriter(out)) {
+                for (int i = 0; i < 30; i++) {
+                    List<Move> played = randomGame(ChessGame.STARTING_FEN, 20, random);
+                    moves.add(played);
+                    writer.writeGame(Map.of("Round", Integer.toString(i)), ChessGame.STARTING_FEN, played, "*");
+                    if (i == 10) {
+                        out.write("[Round \"illegal\"]\n\n1. e4 e4 *\n\n");
+                    }
+                }
+            }
+
+            PgnConverter converter = new PgnConverter(3);
+            assertEquals(30, converter.convert(pgn, archive));
+            assertEquals(1, converter.getErrorCount());
+            assertTrue(converter.getErrors().get(0).startsWith("Illegal move: e4"));
+            try (ArchiveReader reader = ArchiveReader.open(archive)) {
+                for (int i = 0; i < 30; i++) {
+                    assertEquals(Integer.toString(i), reader.getGame(i).getTag("Round"));
+                    assertEquals(moves.get(i), reader.getGame(i).getMoves());
+                }
+            }
+        } finally {
+            Files.deleteIfExists(pgn);
+            Files.deleteIfExists(archive);
+            Files.delete(dir);
+        }
+    }
+
+    // Returns the moves of a game of random legal moves from the given position.
+    private static List<Move> randomGame(String fen, int plies, Random random) {
+        ChessGame game = ChessGame.fromFen(fen);
+        List<Move> played = new ArrayList<>();
+        for (int ply = 0; ply < plies && !game.isGameOver(); ply++) {
+            int[] codes = MoveCodec.orderedCodes(game);
+            Move move = Move.fromCode(codes[random.nextInt(codes.length)]);
+            game.attemptMove(move);
+            played.add(move);
+        }
+        return played;
+    }
+}
@@ -0,0 +1,147 @@
+package bot;
+
+import functionality.ChessGame;
+import functionality.TeamColor;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class AnalysisCacheTest {
+
+    @Test
+    public void testPersistence() throws Exception {
+        Path dir = Files.createTempDirectory("analysis");
+        Path copy = Files.createTempDirectory("analysis");
+        try {
+            try (AnalysisCache cache = AnalysisCache.open(dir)) {
+                cache.put(42, 4, 120, new int[] {1, 2, 3});
+                cache.put(42, 3, -50, new int[] {7});
+                cache.put(-7, 2, 0, new int[] {9});
+                assertEquals(4, cache.get(42, 4).getDepth());
+                assertNull(cache.get(42, 5));
+                assertNull(cache.get(5, 0));
+            }
+
+            // Reopened from the index, and then, as after a crash, from a copy of the index and the
+            // log of a cache that was not closed.
+            try (AnalysisCache cache = AnalysisCache.open(dir)) {
+                AnalysisCache.Entry entry = cache.get(42, 4);
+                assertEquals(120, entry.getScore());
+                assertArrayEquals(new int[] {1, 2, 3}, entry.getPv());
+                cache.put(42, 6, 80, new int[] {3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19});
+                cache.put(100, 1, 10, new int[] {16383});
+                cache.flush();
+                try (Stream<Path> files = Files.list(dir)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.copy(file, copy.resolve(file.getFileName()));
+                    }
+                }
+            }
+            try (AnalysisCache reopened = AnalysisCache.open(copy)) {
+                assertEquals(AnalysisCache.MAX_PV_LENGTH, reopened.get(42, 6).getPv().length);
+                assertEquals(3, reopened.get(42, 6).getBestMove());
+                assertEquals(16383, reopened.get(100, 1).getBestMove());
+                assertEquals(9, reopened.get(-7, 2).getBestMove());
+            }
+            try (AnalysisCache reopened = AnalysisCache.open(dir)) {
+                assertEquals(80, reopened.get(42, 6).getScore());
+                assertEquals(3, reopened.size());
+            }
+            // Only the latest index and the log are kept.
+            try (Stream<Path> files = Files.list(dir)) {
+                assertEquals(2, files.count());
+            }
+        } finally {
+            delete(dir);
+            delete(copy);
+        }
+    }
+
+    @Test
+    public void testSearchRoot() throws Exception {
+        Path dir = Files.createTempDirectory("analysis");
+        try {
+            ChessGame game = new ChessGame();
+            MinimaxTreeExplorer<ChessGame>.NodeValue searched;
+            try (AnalysisCache cache = AnalysisCache.open(dir)) {
+                MinimaxTreeExplorer<ChessGame> explorer = explorer(game, cache);
+                searched = explorer.getNextBestNodes(1).get(0);
+                assertTrue(explorer.getNodeCount() > 1);
+            }
+
+            try (AnalysisCache cache = AnalysisCache.open(dir)) {
+                MinimaxTreeExplorer<ChessGame> explorer = explorer(game, cache);
+                MinimaxTreeExplorer<ChessGame>.NodeValue cached = explorer.getNextBestNodes(1).get(0);
+                assertEquals(1, explorer.getNodeCount());
+                assertEquals(3, explorer.getDepthReached());
+                assertEquals(searched.node.getLastMove(), cached.node.getLastMove());
+                assertEquals(searched.value, cached.value);
+                assertArrayEquals(searched.pv, cached.pv);
+
+                // Deeper searches are not answered from the cache.
+                explorer.setMaxDepth(4);
+                explorer.getNextBestNodes(1);
+                assertTrue(explorer.getNodeCount() > 1);
+                assertEquals(4, cache.get(game.getKey(), 0).getDepth());
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+
+    @Test
+    public void testConcurrentPuts() throws Exception {
+        Path dir = Files.createTempDirectory("analysis");
+        try {
+            try (AnalysisCache cache = AnalysisCache.open(dir)) {
+                Thread[] threads = new Thread[4];
+                for (int t = 0; t < threads.length; t++) {
+                    int first = t;
+                    threads[t] = new Thread(() -> {
+                        for (int depth = first; depth < 400; depth += threads.length) {
+                            for (long key = 0; key < 50; key++) {
+                                cache.put(key, depth, depth, new int[] {depth + 1});
+                            }
+                        }
+                    });
+                    threads[t].start();
+                }
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+                for (long key = 0; key < 50; key++) {
+                    assertEquals(399, cache.get(key, 0).getDepth());
+                }
+            }
+            try (AnalysisCache cache = AnalysisCache.open(dir)) {
+                for (long key = 0; key < 50; key++) {
+                    assertEquals(400, cache.get(key, 399).getBestMove());
+                }
+            }
+        } finally {
+            delete(dir);
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static MinimaxTreeExplorer<ChessGame> explorer(ChessGame game, AnalysisCache cache) {
+        MinimaxTreeExplorer<ChessGame> explorer = new MinimaxTreeExplorer<>(new NaiveUtilityEvaluator(),
+                new ChessDelegate(), TeamColor.WHITE, game, 3);
+        explorer.setIterativeDeepening(true);
+        explorer.setAnalysisCache(cache);
+        return explorer;
+    }
+}
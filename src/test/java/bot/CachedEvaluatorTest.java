@@ -0,0 +1,86 @@
+package bot;
+
+import functionality.ChessGame;
+import functionality.TeamColor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class CachedEvaluatorTest {
+    private static final ChessGame START = new ChessGame();
+    private static final ChessGame SICILIAN =
+            ChessGame.fromFen("rnbqkbnr/pp1ppppp/8/2p5/4P3/8/PPPP1PPP/RNBQKBNR w KQkq c6 0 2");
+
+    @Test
+    public void testHitsAndMisses() {
+        CountingEvaluator counting = new CountingEvaluator();
+        CachedEvaluator cached = new CachedEvaluator(counting, 8);
+        assertEquals(0.0, cached.getHitRate(), 0.0);
+
+        assertEquals(counting.score(START, TeamColor.WHITE, 0), cached.score(START, TeamColor.WHITE, 0));
+        assertEquals(counting.score(START, TeamColor.WHITE, 0), cached.score(START, TeamColor.WHITE, 3));
+        // Each team has its own score, and a score of 0 is cached like any other.
+        assertEquals(counting.score(START, TeamColor.BLACK, 0), cached.score(START, TeamColor.BLACK, 0));
+        assertEquals(0, cached.score(SICILIAN, TeamColor.WHITE, 0));
+        assertEquals(0, cached.score(SICILIAN, TeamColor.WHITE, 0));
+        assertEquals(2, cached.getHits());
+        assertEquals(3, cached.getMisses());
+        assertEquals(0.4, cached.getHitRate(), 1e-9);
+        assertEquals(6, counting.calls);
+
+        cached.clear();
+        assertEquals(0, cached.getHits() + cached.getMisses());
+        cached.score(START, TeamColor.WHITE, 0);
+        assertEquals(1, cached.getMisses());
+    }
+
+    @Test
+    public void testCollisionEvicts() {
+        // With a single slot, every position collides with the one scored before it.
+        CountingEvaluator counting = new CountingEvaluator();
+        CachedEvaluator cached = new CachedEvaluator(counting, 0);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(CountingEvaluator.START_SCORE, cached.score(START, TeamColor.WHITE, 0));
+            assertEquals(0, cached.score(SICILIAN, TeamColor.WHITE, 0));
+        }
+        assertEquals(0, cached.getHits());
+        assertEquals(6, cached.getMisses());
+        assertEquals(CountingEvaluator.START_SCORE, cached.score(START, TeamColor.WHITE, 0));
+        assertEquals(CountingEvaluator.START_SCORE, cached.score(START, TeamColor.WHITE, 0));
+        assertEquals(1, cached.getHits());
+    }
+
+    @Test
+    public void testTornSlotMisses() {
+        CountingEvaluator counting = new CountingEvaluator();
+        CachedEvaluator cached = new CachedEvaluator(counting, 0);
+        cached.score(SICILIAN, TeamColor.WHITE, 0);
+        long sicilianScore = cached.scores[0];
+        cached.score(START, TeamColor.WHITE, 0);
+
+        // A writer of the Sicilian that has only stored its score, over the key of the start.
+        cached.scores[0] = sicilianScore;
+        assertEquals(0, cached.score(SICILIAN, TeamColor.WHITE, 0));
+        cached.scores[0] = sicilianScore;
+        assertEquals(CountingEvaluator.START_SCORE, cached.score(START, TeamColor.WHITE, 0));
+        assertEquals(0, cached.getHits());
+        assertEquals(4, cached.getMisses());
+        assertEquals(4, counting.calls);
+    }
+
+    // Scores the starting position as START_SCORE for white and its negation for black, and every
+    // other position as 0, counting the calls.
+    private static class CountingEvaluator implements ScoreEvaluator<ChessGame> {
+        static final int START_SCORE = 25;
+        int calls;
+
+        @Override
+        public int score(ChessGame state, TeamColor team, int ply) {
+            calls++;
+            if (state.getKey() != START.getKey()) {
+                return 0;
+            }
+            return team == TeamColor.WHITE ? START_SCORE : -START_SCORE;
+        }
+    }
+}
@@ -1,12 +1,18 @@
 package bot;
 
+import functionality.BoardCoordinate;
 import functionality.ChessGame;
+import functionality.Move;
+import functionality.TeamColor;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class ChessDelegateTest {
     private static final String TEST_FILE_DIR = "src/test/testFiles/";
@@ -228,4 +234,52 @@ public class ChessDelegateTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void testStateIteratorMatchesNextStates() {
+        ChessDelegate delegate = new ChessDelegate();
+        ChessGame game = new ChessGame(TEST_FILE_DIR + "notCheckmateExample2.txt", TeamColor.BLACK);
+        game.attemptMove(new BoardCoordinate(0, 7), new BoardCoordinate(1, 7));
+
+        Set<String> expected = new HashSet<>();
+        for (ChessGame g : delegate.nextStates(game)) {
+            expected.add(g.getBoardState());
+        }
+
+        int hashMove = new Move(new BoardCoordinate(6, 4), new BoardCoordinate(4, 4)).toCode();
+        Iterator<ChessGame> itr = delegate.stateIterator(game, 0, hashMove, new SearchHeuristics());
+        ChessGame first = itr.next();
+        assertEquals(hashMove, delegate.moveCode(first));
+
+        Set<String> actual = new HashSet<>();
+        actual.add(first.getBoardState());
+        int count = 1;
+        boolean seenQuiet = false;
+        while (itr.hasNext()) {
+            ChessGame g = itr.next();
+            // All captures and promotions are generated before any quiet move.
+            if (delegate.isQuiet(g)) {
+                seenQuiet = true;
+            } else {
+                assertFalse(seenQuiet);
+            }
+            actual.add(g.getBoardState());
+            count += 1;
+        }
+        assertEquals(expected.size(), count);
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testStateIteratorKillerMove() {
+        ChessDelegate delegate = new ChessDelegate();
+        ChessGame game = new ChessGame(STANDARD_BOARD_PATH);
+        SearchHeuristics heuristics = new SearchHeuristics();
+        int killer = new Move(new BoardCoordinate(7, 6), new BoardCoordinate(5, 5)).toCode();
+        heuristics.recordCutoff(killer, 3, 2);
+
+        // The killer is tried before the other quiet moves at the ply it was recorded for.
+        assertTrue(delegate.moveCode(delegate.stateIterator(game, 2, 0, new SearchHeuristics()).next()) != killer);
+        assertEquals(killer, delegate.moveCode(delegate.stateIterator(game, 3, 0, heuristics).next()));
+    }
+
 }
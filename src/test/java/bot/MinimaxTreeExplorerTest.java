@@ -1,12 +1,17 @@
 package bot;
 
+import functionality.BoardCoordinate;
 import functionality.ChessGame;
+import functionality.Move;
 import functionality.TeamColor;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class MinimaxTreeExplorerTest {
     private static final String TEST_FILE_DIR = "src/test/testFiles/";
@@ -36,6 +41,26 @@ public class MinimaxTreeExplorerTest {
         assertEquals("b", mt.getNextBestNode());
     }
 
+    @Test
+    public void testGetNextBestNodesExactScores() {
+        Map<String, Double> utilities = Map.of("h", 4.0, "i", 8.0, "j", 9.0, "k", 2.0,
+                "l", -2.0, "m", 9.0, "n", -1.0, "o", 5.0);
+        UtilityEvaluator<String> eval = (state, team, depth) -> utilities.get(state);
+
+        MoveEnumerator<String> mEnum = (state) -> {
+            int n = state.charAt(state.length() - 1) - 'a';
+            return List.of(indexToStr(2 * n + 1), indexToStr(2 * n + 2));
+        };
+
+        MinimaxTreeExplorer<String> mt = new MinimaxTreeExplorer<>(eval, mEnum, TeamColor.WHITE, "a", 3);
+        List<MinimaxTreeExplorer<String>.NodeValue> nodes = mt.getNextBestNodes(2);
+        assertEquals(2, nodes.size());
+        assertEquals("b", nodes.get(0).node);
+        assertEquals(800, nodes.get(0).value);
+        assertEquals("c", nodes.get(1).node);
+        assertEquals(500, nodes.get(1).value);
+    }
+
     @Test
     public void testTest() {
         ChessDelegate delegate = new ChessDelegate();
@@ -53,6 +78,116 @@ public class MinimaxTreeExplorerTest {
         System.out.println(mt.getNextBestNode().getBoardState());
     }
 
+    @Test
+    public void testPruningFindsMate() {
+        ChessGame game = new ChessGame(TEST_FILE_DIR + "mateInOneExample.txt");
+        MinimaxTreeExplorer<ChessGame> mt = new MinimaxTreeExplorer<>(new PieceSquareEvaluator(),
+                new ChessDelegate(), TeamColor.WHITE, game, 4);
+        mt.setFutilityPruning(true);
+        mt.setReverseFutilityPruning(true);
+        mt.setIterativeDeepening(true);
+        mt.setAspirationWindows(true);
+        ChessGame next = mt.getNextBestNode();
+        assertEquals(new BoardCoordinate(7, 0), next.getLastMove().getFirst());
+        assertEquals(new BoardCoordinate(0, 0), next.getLastMove().getSecond());
+        assertTrue(next.isGameOver());
+        assertEquals(1, mt.getPrincipalVariation().length);
+        assertEquals(next.getLastMove(), Move.fromCode(mt.getPrincipalVariation()[0]));
+    }
+
+    @Test
+    public void testStopKeepsCompletedDepth() {
+        ChessGame game = new ChessGame(TEST_FILE_DIR + "mateInOneExample.txt");
+        List<MinimaxTreeExplorer<ChessGame>> holder = new ArrayList<>(1);
+        PieceSquareEvaluator pst = new PieceSquareEvaluator();
+        ScoreEvaluator<ChessGame> eval = new ScoreEvaluator<>() {
+            private int count = 0;
+
+            @Override
+            public int score(ChessGame state, TeamColor team, int ply) {
+                if (++count == 20000) {
+                    holder.get(0).stop();
+                }
+                return pst.score(state, team, ply);
+            }
+        };
+        MinimaxTreeExplorer<ChessGame> mt = new MinimaxTreeExplorer<>(eval, new ChessDelegate(),
+                TeamColor.WHITE, game, 10);
+        holder.add(mt);
+        mt.setIterativeDeepening(true);
+        ChessGame next = mt.getNextBestNode();
+        assertTrue(mt.isStopped());
+        assertTrue(mt.getDepthReached() >= 1 && mt.getDepthReached() < 10);
+        assertEquals(new BoardCoordinate(0, 0), next.getLastMove().getSecond());
+        assertTrue(next.isGameOver());
+    }
+
+    @Test
+    public void testNodeLimitAndDeadlineStopSearch() {
+        ChessGame game = new ChessGame(TEST_FILE_DIR + "mateInOneExample.txt");
+        MinimaxTreeExplorer<ChessGame> mt = new MinimaxTreeExplorer<>(new PieceSquareEvaluator(),
+                new ChessDelegate(), TeamColor.WHITE, game, 20);
+        mt.setIterativeDeepening(true);
+        mt.setNodeLimit(5000);
+        ChessGame next = mt.getNextBestNode();
+        assertTrue(mt.isStopped());
+        assertEquals(5000, mt.getNodeCount());
+        assertTrue(next.isGameOver());
+
+        mt.setNodeLimit(0);
+        mt.setDeadline(System.nanoTime() + 200 * 1000000L);
+        next = mt.getNextBestNode();
+        assertTrue(mt.isStopped());
+        assertTrue(mt.getSearchMillis() < 2000);
+        assertTrue(next.isGameOver());
+    }
+
+    @Test
+    public void testStoppedMultiPvKeepsLinesTogether() {
+        ChessGame game = ChessGame.fromFen("r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4");
+        ChessDelegate delegate = new ChessDelegate();
+        MinimaxTreeExplorer<ChessGame> mt = new MinimaxTreeExplorer<>(new PieceSquareEvaluator(), delegate,
+                TeamColor.WHITE, game, 20);
+        mt.setIterativeDeepening(true);
+        int stoppedAfterDepth = 0;
+        for (long limit = 2000; limit <= 20000; limit += 1500) {
+            mt.clearTables();
+            mt.setNodeLimit(limit);
+            List<MinimaxTreeExplorer<ChessGame>.NodeValue> nodes = mt.getNextBestNodes(3);
+            assertTrue(mt.isStopped());
+            if (mt.getDepthReached() > 0) {
+                stoppedAfterDepth++;
+                assertEquals(3, nodes.size());
+                for (MinimaxTreeExplorer<ChessGame>.NodeValue nv : nodes) {
+                    assertEquals(delegate.moveCode(nv.node), nv.pv[0]);
+                }
+                assertTrue(nodes.get(0).value >= nodes.get(1).value);
+                assertTrue(nodes.get(1).value >= nodes.get(2).value);
+            }
+        }
+        assertTrue(stoppedAfterDepth > 0);
+    }
+
+    @Test
+    public void testRootNoiseOnlyChangesRootScores() {
+        Map<String, Double> utilities = Map.of("d", 4.0, "e", 8.0, "f", 5.0, "g", 9.0);
+        UtilityEvaluator<String> eval = (state, team, depth) -> utilities.get(state);
+        MoveEnumerator<String> mEnum = (state) -> {
+            int n = state.charAt(state.length() - 1) - 'a';
+            return List.of(indexToStr(2 * n + 1), indexToStr(2 * n + 2));
+        };
+
+        MinimaxTreeExplorer<String> mt = new MinimaxTreeExplorer<>(eval, mEnum, TeamColor.WHITE, "a", 2);
+        mt.setRootNoise(50, new Random(7));
+        List<MinimaxTreeExplorer<String>.NodeValue> nodes = mt.getNextBestNodes(2);
+        // Without noise, b scores 400 and c scores 500.
+        for (MinimaxTreeExplorer<String>.NodeValue nv : nodes) {
+            int exact = nv.node.equals("b") ? 400 : 500;
+            assertTrue(Math.abs(nv.value - exact) <= 50);
+        }
+        assertTrue(nodes.get(0).value >= nodes.get(1).value);
+    }
+
     public static String indexToStr(int i) {
         return String.valueOf((char) ((int) 'a' + i));
     }
@@ -6,6 +6,8 @@ import org.junit.Test;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
 
 public class ChessGameTest {
     private static final String TEST_FILE_DIR = "src/test/testFiles/";
@@ -372,6 +374,139 @@ public class ChessGameTest {
         assertEquals(expected3, almostCheck.getPossibleMoves());
     }
     
+    @Test
+    public void testKeyTranspositions() {
+        ChessGame game1 = new ChessGame(STANDARD_BOARD_PATH);
+        ChessGame game2 = new ChessGame(STANDARD_BOARD_PATH);
+        assertEquals(game1.getKey(), game2.getKey());
+
+        // Reach the same position with the knight moves played in a different order.
+        assertSuccess(game1.attemptMove(new BoardCoordinate(7, 1), new BoardCoordinate(5, 2)));
+        assertSuccess(game1.attemptMove(new BoardCoordinate(0, 1), new BoardCoordinate(2, 2)));
+        assertSuccess(game1.attemptMove(new BoardCoordinate(7, 6), new BoardCoordinate(5, 5)));
+        assertSuccess(game2.attemptMove(new BoardCoordinate(7, 6), new BoardCoordinate(5, 5)));
+        assertSuccess(game2.attemptMove(new BoardCoordinate(0, 1), new BoardCoordinate(2, 2)));
+        assertTrue(game1.getKey() != game2.getKey());
+        assertSuccess(game2.attemptMove(new BoardCoordinate(7, 1), new BoardCoordinate(5, 2)));
+        assertEquals(game1.getKey(), game2.getKey());
+        assertEquals(game1.getKey(), game1.copy().getKey());
+
+        // Same pieces, but a different team to move.
+        assertTrue(new ChessGame(STANDARD_BOARD_PATH, TeamColor.BLACK).getKey() !=
+                new ChessGame(STANDARD_BOARD_PATH).getKey());
+    }
+
+    @Test
+    public void testNullMove() {
+        ChessGame game = new ChessGame(STANDARD_BOARD_PATH);
+        assertSuccess(game.attemptMove(new BoardCoordinate(6, 4), new BoardCoordinate(4, 4)));
+        long key = game.getKey();
+
+        // Passing the turn also removes the en passant file from the key.
+        game.makeNullMove();
+        assertEquals(TeamColor.WHITE, game.currentTurn());
+        ChessGame passed = new ChessGame(STANDARD_BOARD_PATH);
+        assertSuccess(passed.attemptMove(new BoardCoordinate(6, 4), new BoardCoordinate(5, 4)));
+        assertSuccess(passed.attemptMove(new BoardCoordinate(0, 6), new BoardCoordinate(2, 5)));
+        assertSuccess(passed.attemptMove(new BoardCoordinate(5, 4), new BoardCoordinate(4, 4)));
+        assertSuccess(passed.attemptMove(new BoardCoordinate(2, 5), new BoardCoordinate(0, 6)));
+        assertEquals(passed.getKey(), game.getKey());
+
+        game.unmakeNullMove();
+        assertEquals(TeamColor.BLACK, game.currentTurn());
+        assertEquals(key, game.getKey());
+
+        assertTrue(game.hasNonPawnMaterial(TeamColor.WHITE));
+        assertFalse(new ChessGame(TEST_FILE_DIR + "onlyPawnsAndKing.txt").hasNonPawnMaterial(TeamColor.WHITE));
+    }
+
+    @Test
+    public void testIncrementalScores() {
+        ChessGame game = new ChessGame(STANDARD_BOARD_PATH);
+        assertEquals(24, game.getGamePhase());
+        assertEquals(game.getMidgameScore(TeamColor.WHITE), game.getMidgameScore(TeamColor.BLACK));
+        assertEquals(game.getEndgameScore(TeamColor.WHITE), game.getEndgameScore(TeamColor.BLACK));
+
+        // Mirrored moves keep the scores equal.
+        assertSuccess(game.attemptMove(new BoardCoordinate(6, 4), new BoardCoordinate(4, 4)));
+        assertSuccess(game.attemptMove(new BoardCoordinate(1, 4), new BoardCoordinate(3, 4)));
+        assertSuccess(game.attemptMove(new BoardCoordinate(7, 6), new BoardCoordinate(5, 5)));
+        assertSuccess(game.attemptMove(new BoardCoordinate(0, 6), new BoardCoordinate(2, 5)));
+        assertEquals(game.getMidgameScore(TeamColor.WHITE), game.getMidgameScore(TeamColor.BLACK));
+        assertEquals(game.getEndgameScore(TeamColor.WHITE), game.getEndgameScore(TeamColor.BLACK));
+
+        // Capturing a pawn lowers the opponent's material and leaves the phase unchanged.
+        int blackMidgame = game.getMidgameScore(TeamColor.BLACK);
+        assertSuccess(game.attemptMove(new BoardCoordinate(5, 5), new BoardCoordinate(3, 4)));
+        assertTrue(game.getMidgameScore(TeamColor.BLACK) < blackMidgame);
+        assertEquals(24, game.getGamePhase());
+        assertEquals(game.getMidgameScore(TeamColor.BLACK), game.copy().getMidgameScore(TeamColor.BLACK));
+    }
+
+    @Test
+    public void testFen() {
+        ChessGame game = new ChessGame();
+        assertEquals(ChessGame.STARTING_FEN, game.toFen());
+        assertEquals(game.getKey(), ChessGame.fromFen(ChessGame.STARTING_FEN).getKey());
+
+        assertSuccess(game.attemptMove(new BoardCoordinate(6, 4), new BoardCoordinate(4, 4)));
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1", game.toFen());
+        assertSuccess(game.attemptMove(new BoardCoordinate(0, 6), new BoardCoordinate(2, 5)));
+        assertSuccess(game.attemptMove(new BoardCoordinate(7, 4), new BoardCoordinate(6, 4)));
+        String fen = "rnbqkb1r/pppppppp/5n2/8/4P3/8/PPPPKPPP/RNBQ1BNR b kq - 2 2";
+        assertEquals(fen, game.toFen());
+        ChessGame loaded = ChessGame.fromFen(fen);
+        assertEquals(fen, loaded.toFen());
+        assertEquals(game.getKey(), loaded.getKey());
+
+        // The en passant square allows the capture, and check is detected on loading.
+        ChessGame enPassant = ChessGame.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 10");
+        assertSuccess(enPassant.attemptMove(new BoardCoordinate(3, 4), new BoardCoordinate(2, 3)));
+        assertEquals("4k3/8/3P4/8/8/8/8/4K3 b - - 0 10", enPassant.toFen());
+        assertTrue(ChessGame.fromFen("4k3/8/8/8/8/8/8/r3K3 w - -").isInCheck());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidFen() {
+        ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1");
+    }
+
+    @Test
+    public void testEnPassantFen() {
+        // The en passant square must be on the rank skipped by a pawn of the side that just moved,
+        // with that pawn in front of it.
+        for (String fen : new String[] {"4k3/8/8/3pP3/8/8/8/4K3 w - d3 0 10", "4k3/8/8/3pP3/8/8/8/4K3 w - c6 0 10",
+                "4k3/8/8/3PP3/8/8/8/4K3 w - d6 0 10", "4k3/3p4/8/3pP3/8/8/8/4K3 w - d6 0 10",
+                "4k3/8/8/8/4Pp2/8/8/4K3 b - e6 0 10"}) {
+            try {
+                ChessGame.fromFen(fen);
+                fail(fen);
+            } catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        }
+
+        // The en passant square only changes the key when the pawn can be captured, whether the
+        // position was loaded or reached by moves.
+        ChessGame game = new ChessGame();
+        assertSuccess(game.attemptMove(new BoardCoordinate(6, 4), new BoardCoordinate(4, 4)));
+        assertEquals(ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1").getKey(),
+                game.getKey());
+        assertEquals(ChessGame.fromFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1").getKey(),
+                game.getKey());
+        assertNotEquals(ChessGame.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - - 0 10").getKey(),
+                ChessGame.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 10").getKey());
+        assertEquals(ChessGame.fromFen("4k3/8/8/3p3P/8/8/8/4K3 w - - 0 10").getKey(),
+                ChessGame.fromFen("4k3/8/8/3p3P/8/8/8/4K3 w - d6 0 10").getKey());
+    }
+
+    @Test
+    public void testFromResource() {
+        ChessGame game = ChessGame.fromResource("standardLayout.txt", TeamColor.BLACK);
+        assertEquals(TeamColor.BLACK, game.currentTurn());
+        assertEquals(ChessGame.STARTING_FEN.replace(" w ", " b "), game.toFen());
+    }
+
     private static void assertSuccess(ChessGame.MoveOutcome outcome) {
         assertEquals(ChessGame.MoveOutcome.SUCCESS, outcome);
     }
@@ -0,0 +1,70 @@
+package host;
+
+import bot.Strength;
+import functionality.BoardCoordinate;
+import functionality.Move;
+import functionality.TeamColor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class GameHostTest {
+
+    @Test
+    public void testSessions() {
+        GameHost host = new GameHost(2);
+        try {
+            List<GameSession> sessions = new ArrayList<>();
+            List<CompletableFuture<Move>> replies = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                GameSession session = host.createSession(TeamColor.WHITE, Strength.BEGINNER);
+                sessions.add(session);
+                assertTrue(session.isPlayersTurn());
+                replies.add(host.play(session, new Move(new BoardCoordinate(6, 4), new BoardCoordinate(4, 4))));
+            }
+            for (int i = 0; i < 10; i++) {
+                assertNotNull(replies.get(i).join());
+                assertTrue(sessions.get(i).isPlayersTurn());
+                assertTrue(sessions.get(i).getFen().contains(" w KQkq "));
+            }
+
+            // The bot moves first when it plays white, and illegal moves are refused.
+            GameSession botFirst = host.createSession(TeamColor.BLACK, Strength.BEGINNER);
+            assertNotNull(botFirst.getBotReply().join());
+            assertTrue(botFirst.isPlayersTurn());
+            try {
+                host.play(botFirst, new Move(new BoardCoordinate(1, 4), new BoardCoordinate(4, 4)));
+                assertTrue(false);
+            } catch (IllegalArgumentException e) {
+                assertTrue(botFirst.isPlayersTurn());
+            }
+            assertEquals(11, host.getSessionCount());
+            host.closeSession(botFirst.getId());
+            assertEquals(10, host.getSessionCount());
+            assertFalse(botFirst.isOver());
+        } finally {
+            host.shutdown();
+        }
+    }
+
+    @Test(timeout = 120000)
+    public void testLoadTest() throws Exception {
+        GameHost host = new GameHost(2);
+        try {
+            LoadTest test = new LoadTest(host, 2, 0, Strength.BEGINNER);
+            long[] latencies = test.run(20);
+            assertEquals(0, test.getFailureCount());
+            assertTrue(latencies.length > 0 && latencies.length <= 40);
+            assertEquals(0, host.getSessionCount());
+        } finally {
+            host.shutdown();
+        }
+    }
+}
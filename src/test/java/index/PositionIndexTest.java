@@ -0,0 +1,100 @@
+package index;
+
+import functionality.ChessGame;
+import functionality.Move;
+import org.junit.Test;
+import pgn.GameRecord;
+import pgn.PgnGame;
+import pgn.PgnReader;
+import pgn.PgnWriter;
+
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class PositionIndexTest {
+
+    @Test
+    public void testBuildAndLookup() throws Exception {
+        Path dir = Files.createTempDirectory("index");
+        Path pgn = dir.resolve("games.pgn");
+        Path indexFile = dir.resolve("games.idx");
+        try {
+            Random random = new Random(7);
+            try (Writer out = Files.newBufferedWriter(pgn); PgnWriter writer = new PgnWriter(out)) {
+                for (int i = 0; i < 40; i++) {
+                    ChessGame game = new ChessGame();
+                    GameRecord record = new GameRecord(game);
+                    for (int ply = 0; ply < 12 && !game.isGameOver(); ply++) {
+                        List<Move> moves = new ArrayList<>(game.getPossibleMoves());
+                        moves.sort((a, b) -> Integer.compare(a.toCode(), b.toCode()));
+                        game.attemptMove(moves.get(random.nextInt(moves.size())));
+                        record.recordLastMove(game);
+                    }
+                    record.write(writer, Map.of("Round", Integer.toString(i)), "*");
+                }
+            }
+
+            // Positions of the games as read back, with the offsets of the games reaching them.
+            Map<Long, TreeSet<Long>> expected = new HashMap<>();
+            try (PgnReader reader = PgnReader.open(pgn)) {
+                for (PgnGame game = reader.next(); game != null; game = reader.next()) {
+                    long offset = game.getOffset();
+                    game.replay(position -> expected.computeIfAbsent(position.getKey(), k -> new TreeSet<>())
+                            .add(offset));
+                }
+            }
+
+            // A small run size makes the builder merge many run files.
+            PositionIndexBuilder builder = new PositionIndexBuilder(2, 50, dir);
+            assertEquals(40, builder.build(pgn, indexFile));
+            try (PositionIndex index = PositionIndex.open(indexFile)) {
+                assertEquals(expected.values().stream().mapToLong(TreeSet::size).sum(), index.getEntryCount());
+                for (Map.Entry<Long, TreeSet<Long>> entry : expected.entrySet()) {
+                    long[] offsets = entry.getValue().stream().mapToLong(Long::longValue).toArray();
+                    assertArrayEquals(offsets, index.lookup(entry.getKey()));
+                }
+                assertEquals(40, index.lookup(new ChessGame()).length);
+                assertEquals(0, index.lookup(ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1")).length);
+            }
+            try (Stream<Path> files = Files.list(dir)) {
+                assertEquals(2, files.count());
+            }
+        } finally {
+            Files.deleteIfExists(pgn);
+            Files.deleteIfExists(indexFile);
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    public void testSort() {
+        Random random = new Random(3);
+        int size = 1000;
+        long[] keys = new long[size];
+        long[] offsets = new long[size];
+        long[][] pairs = new long[size][];
+        for (int i = 0; i < size; i++) {
+            keys[i] = random.nextInt(50) - 25;
+            offsets[i] = random.nextInt(1000);
+            pairs[i] = new long[] {keys[i], offsets[i]};
+        }
+        PositionIndexBuilder.sort(keys, offsets, 0, size);
+        Arrays.sort(pairs, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        for (int i = 0; i < size; i++) {
+            assertEquals(pairs[i][0], keys[i]);
+            assertEquals(pairs[i][1], offsets[i]);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package match;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SprtTest {
+
+    @Test
+    public void testSprt() {
+        Sprt sprt = new Sprt(0, 10, 0.05, 0.05);
+        assertEquals(Math.log(0.05 / 0.95), sprt.getLowerBound(), 1e-9);
+        assertEquals(Math.log(0.95 / 0.05), sprt.getUpperBound(), 1e-9);
+        assertEquals(Sprt.Status.CONTINUE, sprt.getStatus());
+
+        // Even results favour neither hypothesis much, and clearly better ones accept elo1.
+        for (int i = 0; i < 100; i++) {
+            sprt.addResult(1);
+            sprt.addResult(0.5);
+            sprt.addResult(0);
+        }
+        assertEquals(0, sprt.getElo(), 1e-9);
+        assertEquals(Sprt.Status.CONTINUE, sprt.getStatus());
+        for (int i = 0; i < 400 && sprt.getStatus() == Sprt.Status.CONTINUE; i++) {
+            sprt.addResult(1);
+            sprt.addResult(0.5);
+        }
+        assertEquals(Sprt.Status.ACCEPT_H1, sprt.getStatus());
+        assertTrue(sprt.getElo() > 10);
+
+        Sprt worse = new Sprt(0, 10, 0.05, 0.05);
+        for (int i = 0; i < 400 && worse.getStatus() == Sprt.Status.CONTINUE; i++) {
+            worse.addResult(0);
+            worse.addResult(0.5);
+        }
+        assertEquals(Sprt.Status.ACCEPT_H0, worse.getStatus());
+    }
+}
@@ -0,0 +1,79 @@
+package match;
+
+import functionality.ChessGame;
+import org.junit.Test;
+import pgn.PgnGame;
+import pgn.PgnReader;
+import pgn.PgnWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class TournamentTest {
+    // White mates with Ra8 whichever engine plays it.
+    private static final String BACK_RANK_MATE = "6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1";
+    private static final String BARE_KINGS = "4k3/8/8/8/8/8/8/4K3 w - - 0 1";
+
+    @Test(timeout = 60000)
+    public void testTournament() throws Exception {
+        Path file = Files.createTempFile("openings", ".epd");
+        List<String> openings;
+        try {
+            Files.write(file, List.of("# Openings", "", BACK_RANK_MATE, "4k3/8/8/8/8/8/8/4K3 w - - id \"bare kings\";"),
+                    StandardCharsets.UTF_8);
+            openings = Tournament.readOpenings(file);
+        } finally {
+            Files.delete(file);
+        }
+        assertEquals(List.of(BACK_RANK_MATE, BARE_KINGS), openings);
+
+        EngineConfig first = EngineConfig.parse("name=first,depth=2");
+        EngineConfig second = EngineConfig.parse("name=second,eval=piecesquare,depth=1");
+        StringWriter out = new StringWriter();
+        Sprt sprt;
+        try (PgnWriter pgn = new PgnWriter(out)) {
+            sprt = new Tournament(first, second, openings, new Sprt(0, 10, 0.05, 0.05), pgn).run(4, 1);
+        }
+        // Each opening is played with both engines as white, and white mates in the first one.
+        assertEquals(4, sprt.getGames());
+        assertEquals(1, sprt.getWins());
+        assertEquals(1, sprt.getLosses());
+        assertEquals(2, sprt.getDraws());
+
+        byte[] bytes = out.toString().getBytes(StandardCharsets.UTF_8);
+        PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(bytes)));
+        String[][] expected = {{"first", "second", "1-0"}, {"second", "first", "1-0"},
+                {"first", "second", "1/2-1/2"}, {"second", "first", "1/2-1/2"}};
+        for (int i = 0; i < expected.length; i++) {
+            PgnGame game = reader.next();
+            assertEquals(String.valueOf(i + 1), game.getTag("Round"));
+            assertEquals(expected[i][0], game.getTag("White"));
+            assertEquals(expected[i][1], game.getTag("Black"));
+            assertEquals(expected[i][2], game.getResult());
+            assertEquals(openings.get(i / 2), game.getStartFen());
+            assertEquals(i < 2 ? List.of("Ra8#") : List.of(), game.getSanMoves());
+        }
+        assertNull(reader.next());
+    }
+
+    @Test(timeout = 60000)
+    public void testAdjudication() {
+        EngineConfig engine = EngineConfig.parse("depth=1");
+        Tournament tournament = new Tournament(engine, engine, List.of(ChessGame.STARTING_FEN),
+                new Sprt(0, 10, 0.05, 0.05), null);
+        tournament.setMaxPlies(3);
+        Tournament.GameResult result = tournament.playGame(ChessGame.STARTING_FEN, engine, engine);
+        assertEquals("1/2-1/2", result.result);
+        assertEquals("adjudication", result.termination);
+        assertEquals(3, result.moves.size());
+        assertEquals(0.5, result.whiteScore(), 0.0);
+    }
+}
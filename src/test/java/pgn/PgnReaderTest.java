@@ -0,0 +1,121 @@
+package pgn;
+
+import functionality.ChessGame;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class PgnReaderTest {
+    private static final String PGN = "[Event \"Casual \\\"game\\\"\"]\n"
+            + "[White \"M\u00fcller\"]\n\n"
+            + "1. e4 {best by test} e5 (1... c5 2. Nf3 (2. c3) d6) 2. Nf3 $1 Nc6 ; Ruy Lopez next\n"
+            + "3.Bb5 a6 1-0\n"
+            + "\n"
+            + "% an escaped line\n"
+            + "[Event \"Unfinished\"]\n"
+            + "[SetUp \"1\"]\n"
+            + "[FEN \"4k3/8/8/8/8/8/4P3/4K3 w - - 0 1\"]\n\n"
+            + "1. e4 Kd7 2. e5\n"
+            + "[Event \"Empty\"]\n\n"
+            + "*\n";
+
+    @Test
+    public void testNext() throws Exception {
+        byte[] bytes = PGN.getBytes(StandardCharsets.UTF_8);
+        PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(bytes)));
+
+        PgnGame first = reader.next();
+        assertEquals(0, first.getOffset());
+        assertEquals("Casual \"game\"", first.getTag("Event"));
+        assertEquals("M\u00fcller", first.getTag("White"));
+        assertEquals(List.of("e4", "e5", "Nf3", "Nc6", "Bb5", "a6"), first.getSanMoves());
+        assertEquals("1-0", first.getResult());
+        assertEquals("r1bqkbnr/1ppp1ppp/p1n5/1B2p3/4P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 0 4",
+                first.replay(null).toFen());
+
+        PgnGame second = reader.next();
+        assertEquals(new String(bytes, StandardCharsets.UTF_8).indexOf("% an"), offsetInChars(bytes, second));
+        assertEquals("*", second.getResult());
+        assertEquals(3, second.getMoves().size());
+
+        PgnGame third = reader.next();
+        assertEquals("Empty", third.getTag("Event"));
+        assertEquals(0, third.getSanMoves().size());
+        assertNull(reader.next());
+    }
+
+    @Test
+    public void testMoveNumbers() throws Exception {
+        String pgn = "1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. 0-0 Nf6 5. d3 d6 6. Nc3 Bg4 7. Be3 Qd7\n"
+                + "8. Qd2 0-0-0 9. h3 Bh5 10. a3 Kb8 11. b4 Bb6 12. Rab1 12...Rhe8 *\n";
+        PgnReader reader = new PgnReader(Channels.newChannel(
+                new ByteArrayInputStream(pgn.getBytes(StandardCharsets.US_ASCII))));
+        PgnGame game = reader.next();
+        List<String> moves = game.getSanMoves();
+        assertEquals("0-0", moves.get(6));
+        assertEquals("0-0-0", moves.get(15));
+        assertEquals("Rhe8", moves.get(23));
+        assertEquals("1k1rr3/pppq1ppp/1bnp1n2/4p2b/1PB1P3/P1NPBN1P/2PQ1PP1/1R3RK1 w - - 3 13",
+                game.replay(null).toFen());
+    }
+
+    @Test(timeout = 60000)
+    public void testForEachGame() throws Exception {
+        ChessGame game = new ChessGame();
+        GameRecord record = new GameRecord(game);
+        for (String san : new String[] {"f3", "e5", "g4", "Qh4#"}) {
+            game.attemptMove(San.fromSan(game, san));
+            record.recordLastMove(game);
+        }
+        StringWriter out = new StringWriter();
+        PgnWriter writer = new PgnWriter(out);
+        for (int i = 0; i < 200; i++) {
+            record.write(writer, Map.of("Round", Integer.toString(i)), "0-1");
+        }
+
+        Path file = Files.createTempFile("games", ".pgn");
+        try {
+            Files.write(file, out.toString().getBytes(StandardCharsets.UTF_8));
+            AtomicInteger mates = new AtomicInteger();
+            long count = PgnReader.forEachGame(file, 3, pgn -> {
+                if (ChessGame.verifyGameCheckmate(pgn.replay(null))) {
+                    mates.incrementAndGet();
+                }
+            });
+            assertEquals(200, count);
+            assertEquals(200, mates.get());
+
+            // A failing action must not block the reader, even with more games than the queue holds.
+            AtomicInteger calls = new AtomicInteger();
+            try {
+                PgnReader.forEachGame(file, 1, pgn -> {
+                    calls.incrementAndGet();
+                    throw new StackOverflowError();
+                });
+                fail("Expected the action's error");
+            } catch (StackOverflowError e) {
+                assertEquals(1, calls.get());
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // Returns the offset of a game in characters rather than bytes, the text before it having one
+    // character of two bytes.
+    private static int offsetInChars(byte[] bytes, PgnGame game) {
+        return new String(bytes, 0, (int) game.getOffset(), StandardCharsets.UTF_8).length();
+    }
+}
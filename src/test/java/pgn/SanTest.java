@@ -0,0 +1,91 @@
+package pgn;
+
+import functionality.BoardCoordinate;
+import functionality.ChessGame;
+import functionality.Move;
+import org.junit.Test;
+
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SanTest {
+
+    @Test
+    public void testToSan() {
+        ChessGame game = new ChessGame();
+        assertEquals("e4", San.toSan(game, move("e2", "e4")));
+        assertEquals("Nf3", San.toSan(game, move("g1", "f3")));
+
+        // Knights on b1 and f3 can both reach d2, and rooks on a1 and a5 can both reach a3.
+        ChessGame knights = ChessGame.fromFen("4k3/8/8/R7/8/8/8/RN2KN2 w - - 0 1");
+        assertEquals("Nbd2", San.toSan(knights, move("b1", "d2")));
+        assertEquals("R1a3", San.toSan(knights, move("a1", "a3")));
+
+        ChessGame castling = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        assertEquals("O-O", San.toSan(castling, move("e1", "g1")));
+        assertEquals("O-O-O", San.toSan(castling, move("e1", "c1")));
+
+        ChessGame promotion = ChessGame.fromFen("3r2k1/4P3/8/8/8/8/8/4K3 w - - 0 1");
+        assertEquals("exd8=Q+", San.toSan(promotion, new Move(square("e7"), square("d8"), 'q')));
+        assertEquals("e8=N", San.toSan(promotion, new Move(square("e7"), square("e8"), 'n')));
+
+        ChessGame mate = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        assertEquals("Ra8#", San.toSan(mate, move("a1", "a8")));
+    }
+
+    @Test
+    public void testFromSan() {
+        ChessGame knights = ChessGame.fromFen("4k3/8/8/R7/8/8/8/RN2KN2 w - - 0 1");
+        assertEquals(move("b1", "d2"), San.fromSan(knights, "Nbd2"));
+        assertEquals(move("a1", "a3"), San.fromSan(knights, "R1a3"));
+        assertEquals(move("f1", "g3"), San.fromSan(knights, "Ng3+"));
+
+        ChessGame castling = ChessGame.fromFen("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        assertEquals(move("e1", "g1"), San.fromSan(castling, "O-O"));
+        assertEquals(move("e1", "c1"), San.fromSan(castling, "0-0-0"));
+
+        ChessGame promotion = ChessGame.fromFen("3r2k1/4P3/8/8/8/8/8/4K3 w - - 0 1");
+        assertEquals(new Move(square("e7"), square("d8"), 'q'), San.fromSan(promotion, "exd8=Q+"));
+        assertEquals('n', San.fromSan(promotion, "e8N").getPawnPromotion());
+
+        assertInvalid(knights, "Nd2");
+        assertInvalid(knights, "Ra3");
+        assertInvalid(knights, "Qd4");
+        assertInvalid(new ChessGame(), "e5");
+        assertInvalid(new ChessGame(), "O-O");
+        assertInvalid(new ChessGame(), "z9");
+    }
+
+    @Test
+    public void testWriteGame() throws Exception {
+        StringWriter out = new StringWriter();
+        new PgnWriter(out).writeGame(Map.of("White", "a", "Black", "b"), ChessGame.STARTING_FEN,
+                List.of(move("f2", "f3"), move("e7", "e5"), move("g2", "g4"), move("d8", "h4")), "0-1");
+        String pgn = out.toString();
+        assertTrue(pgn.startsWith("[Event \"?\"]\n"));
+        assertTrue(pgn.contains("[White \"a\"]\n[Black \"b\"]\n[Result \"0-1\"]\n\n"));
+        assertTrue(pgn.endsWith("1. f3 e5 2. g4 Qh4# 0-1\n\n"));
+    }
+
+    private static void assertInvalid(ChessGame game, String san) {
+        try {
+            San.fromSan(game, san);
+            fail("Accepted " + san);
+        } catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    private static Move move(String src, String dest) {
+        return new Move(square(src), square(dest));
+    }
+
+    private static BoardCoordinate square(String square) {
+        return new BoardCoordinate('8' - square.charAt(1), square.charAt(0) - 'a');
+    }
+}
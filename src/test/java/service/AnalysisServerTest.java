@@ -0,0 +1,111 @@
+package service;
+
+import functionality.ChessGame;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AnalysisServerTest {
+    private AnalysisServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new AnalysisServer(0, 2, 100);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    public void testEndpoints() throws Exception {
+        String legal = get("/legalmoves?fen=" + URLEncoder.encode(ChessGame.STARTING_FEN, StandardCharsets.UTF_8));
+        assertEquals(20, legal.split(",").length);
+        assertTrue(legal.startsWith("{\"moves\":[\"a2a3\",\"a2a4\","));
+
+        String best = get("/bestmove?depth=3&fen=" + URLEncoder.encode("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1",
+                StandardCharsets.UTF_8));
+        assertTrue(best, best.startsWith("{\"bestmove\":\"a1a8\",\"san\":\"Ra8#\",\"score\":{\"mate\":1}"));
+
+        String multiPv = get("/multipv?depth=2&lines=2&fen=" + URLEncoder.encode(ChessGame.STARTING_FEN,
+                StandardCharsets.UTF_8));
+        assertEquals(2, multiPv.split("\"move\"").length - 1);
+
+        assertEquals(400, status("/bestmove?fen=invalid"));
+        assertEquals(400, status("/bestmove?depth=99&fen=" + URLEncoder.encode(ChessGame.STARTING_FEN,
+                StandardCharsets.UTF_8)));
+    }
+
+    @Test(timeout = 60000)
+    public void testFailedSearchCompletesRequests() throws Exception {
+        server.stop();
+        server = new AnalysisServer(0, 1, 100) {
+            @Override
+            List<Line> search(ChessGame game, int depth, int lines) {
+                throw new StackOverflowError();
+            }
+        };
+        server.start();
+
+        List<CompletableFuture<List<AnalysisServer.Line>>> requests = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            requests.add(server.analyze(ChessGame.fromFen(ChessGame.STARTING_FEN), 4, 1));
+        }
+        for (CompletableFuture<List<AnalysisServer.Line>> request : requests) {
+            try {
+                request.join();
+                fail("Expected the search to fail");
+            } catch (CompletionException e) {
+                assertTrue(e.getCause() instanceof StackOverflowError);
+            }
+        }
+        assertEquals(500, status("/bestmove?fen=" + URLEncoder.encode(ChessGame.STARTING_FEN,
+                StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void testIdenticalRequestsShareOneSearch() {
+        List<CompletableFuture<List<AnalysisServer.Line>>> requests = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            requests.add(server.analyze(ChessGame.fromFen(ChessGame.STARTING_FEN), 5, 1));
+        }
+        for (CompletableFuture<List<AnalysisServer.Line>> request : requests) {
+            assertEquals(requests.get(0).join().get(0).move, request.join().get(0).move);
+        }
+        server.analyze(new ChessGame(), 5, 1).join();
+        assertEquals(1, server.getSearchCount());
+        assertEquals(5, server.getCoalescedCount() + server.getCacheHits());
+    }
+
+    private String get(String path) throws Exception {
+        HttpURLConnection connection = open(path);
+        assertEquals(200, connection.getResponseCode());
+        try (InputStream in = connection.getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private int status(String path) throws Exception {
+        return open(path).getResponseCode();
+    }
+
+    private HttpURLConnection open(String path) throws Exception {
+        return (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+    }
+}
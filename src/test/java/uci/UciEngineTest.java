@@ -0,0 +1,49 @@
+package uci;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+import org.junit.Test;
+
+import static org.junit.Assert.assertTrue;
+
+public class UciEngineTest {
+    @Test
+    public void testHandshake() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        UciEngine engine = new UciEngine(new StringReader(""), new PrintStream(bytes, true));
+        engine.handle("uci");
+        engine.handle("isready");
+        String output = bytes.toString();
+        assertTrue(output.contains("id name "));
+        assertTrue(output.contains("uciok"));
+        assertTrue(output.endsWith("readyok" + System.lineSeparator()));
+    }
+
+    @Test
+    public void testGoDepthSendsInfoAndBestMove() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // The input ends after go, which waits for the search to send its best move.
+        UciEngine engine = new UciEngine(new StringReader("position startpos moves e2e4 e7e5\ngo depth 3\n"),
+                new PrintStream(bytes, true));
+        engine.handle("position startpos moves e2e4 e7e5");
+        engine.handle("go depth 3");
+        long end = System.currentTimeMillis() + 20000;
+        while (!bytes.toString().contains("bestmove") && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        String output = bytes.toString();
+        assertTrue(output.contains("info depth 3 score cp "));
+        assertTrue(output.matches("(?s).*bestmove [a-h][1-8][a-h][1-8].*"));
+    }
+
+    @Test
+    public void testStopEndsInfiniteSearch() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        UciEngine engine = new UciEngine(new StringReader("position startpos\ngo infinite\nstop\n"),
+                new PrintStream(bytes, true));
+        engine.run();
+        String output = bytes.toString();
+        assertTrue(output.matches("(?s).*bestmove [a-h][1-8][a-h][1-8].*"));
+    }
+}